@@ -0,0 +1,41 @@
+package com.deepoove.swagger.diff.benchmark;
+
+import com.deepoove.swagger.diff.compare.MapKeyDiff;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Key diff of two maps sharing most of their keys, as done for paths,
+ * operations and model properties
+ */
+@State(Scope.Benchmark)
+public class MapKeyDiffBenchmark {
+
+	@Param({"10", "1000", "100000"})
+	public int size;
+
+	private Map<String, Object> left;
+	private Map<String, Object> right;
+
+	@Setup
+	public void setup() {
+		left = new LinkedHashMap<String, Object>();
+		right = new LinkedHashMap<String, Object>();
+		for (int i = 0; i < size; i++) {
+			left.put("key" + i, i);
+			right.put(i % 10 == 0 ? "key" + i + "_v2" : "key" + i, i);
+		}
+	}
+
+	@Benchmark
+	public MapKeyDiff<String, Object> diff() {
+		return MapKeyDiff.diff(left, right);
+	}
+
+}
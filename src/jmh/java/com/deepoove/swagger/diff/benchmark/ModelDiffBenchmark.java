@@ -0,0 +1,54 @@
+package com.deepoove.swagger.diff.benchmark;
+
+import com.deepoove.swagger.diff.compare.DiffContext;
+import com.deepoove.swagger.diff.compare.ModelDiff;
+import io.swagger.models.Model;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Map;
+
+/**
+ * Diffing a definition graph, deep (long ref chains) or wide (many
+ * properties per definition). {@link #firstDiff()} starts from an empty
+ * cache like the first operation of a comparison does, {@link #cachedDiff()}
+ * measures every further operation returning the same definition.
+ */
+@State(Scope.Benchmark)
+public class ModelDiffBenchmark {
+
+	@Param({"1", "8", "64"})
+	public int depth;
+
+	@Param({"8", "256"})
+	public int width;
+
+	private Map<String, Model> oldDefinitions;
+	private Map<String, Model> newDefinitions;
+	private DiffContext warmContext;
+
+	@Setup
+	public void setup() {
+		SyntheticSpec spec = new SyntheticSpec().roots(1).depth(depth).width(width);
+		oldDefinitions = spec.definitions(false);
+		newDefinitions = spec.definitions(true);
+		warmContext = new DiffContext(oldDefinitions, newDefinitions);
+		ModelDiff.buildWithContext(warmContext).diffRef(SyntheticSpec.rootName(0), SyntheticSpec.rootName(0), "body");
+	}
+
+	@Benchmark
+	public ModelDiff firstDiff() {
+		return ModelDiff.buildWithDefinition(oldDefinitions, newDefinitions)
+				.diffRef(SyntheticSpec.rootName(0), SyntheticSpec.rootName(0), "body");
+	}
+
+	@Benchmark
+	public ModelDiff cachedDiff() {
+		return ModelDiff.buildWithContext(warmContext)
+				.diffRef(SyntheticSpec.rootName(0), SyntheticSpec.rootName(0), "body");
+	}
+
+}
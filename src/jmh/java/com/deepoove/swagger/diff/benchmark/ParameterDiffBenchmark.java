@@ -0,0 +1,42 @@
+package com.deepoove.swagger.diff.benchmark;
+
+import com.deepoove.swagger.diff.compare.DiffContext;
+import com.deepoove.swagger.diff.compare.ParameterDiff;
+import io.swagger.models.Model;
+import io.swagger.models.parameters.Parameter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Matching the parameters of one operation
+ */
+@State(Scope.Benchmark)
+public class ParameterDiffBenchmark {
+
+	@Param({"5", "100", "1000"})
+	public int parameters;
+
+	private DiffContext context;
+	private List<Parameter> left;
+	private List<Parameter> right;
+
+	@Setup
+	public void setup() {
+		SyntheticSpec spec = new SyntheticSpec();
+		context = new DiffContext(new HashMap<String, Model>(), new HashMap<String, Model>());
+		left = spec.parameters(parameters, false);
+		right = spec.parameters(parameters, true);
+	}
+
+	@Benchmark
+	public ParameterDiff diff() {
+		return ParameterDiff.buildWithContext(context).diff(left, right);
+	}
+
+}
@@ -0,0 +1,34 @@
+package com.deepoove.swagger.diff.benchmark;
+
+import io.swagger.models.Swagger;
+import io.swagger.parser.SwaggerParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+
+/**
+ * Parsing and resolving a spec file, the first stage of every comparison
+ */
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+
+	@Param({"100", "1000"})
+	public int paths;
+
+	private String location;
+
+	@Setup
+	public void setup() throws IOException {
+		location = new SyntheticSpec().paths(paths).roots(Math.max(1, paths / 10)).write(false).getAbsolutePath();
+	}
+
+	@Benchmark
+	public Swagger read() {
+		return new SwaggerParser().read(location, null, true);
+	}
+
+}
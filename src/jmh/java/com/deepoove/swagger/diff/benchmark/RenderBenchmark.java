@@ -0,0 +1,81 @@
+package com.deepoove.swagger.diff.benchmark;
+
+import com.deepoove.swagger.diff.SwaggerDiff;
+import com.deepoove.swagger.diff.output.HtmlRender;
+import com.deepoove.swagger.diff.output.MarkdownRender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Rendering a diff, either to a String or streamed to a sink handing its
+ * input to the blackhole
+ */
+@State(Scope.Benchmark)
+public class RenderBenchmark {
+
+	@Param({"100", "1000"})
+	public int paths;
+
+	private SwaggerDiff diff;
+
+	@Setup
+	public void setup() throws IOException {
+		SyntheticSpec spec = new SyntheticSpec().paths(paths).roots(Math.max(1, paths / 10)).changeEvery(3);
+		diff = SwaggerDiff.compareV2(spec.write(false).getAbsolutePath(), spec.write(true).getAbsolutePath());
+	}
+
+	@Benchmark
+	public String html() {
+		return new HtmlRender().render(diff);
+	}
+
+	@Benchmark
+	public String markdown() {
+		return new MarkdownRender().render(diff);
+	}
+
+	@Benchmark
+	public void htmlStreamed(Blackhole blackhole) throws IOException {
+		new HtmlRender().render(diff, new BlackholeWriter(blackhole));
+	}
+
+	@Benchmark
+	public void markdownStreamed(Blackhole blackhole) throws IOException {
+		new MarkdownRender().render(diff, new BlackholeWriter(blackhole));
+	}
+
+	private static class BlackholeWriter extends Writer {
+		private final Blackhole blackhole;
+
+		BlackholeWriter(Blackhole blackhole) {
+			this.blackhole = blackhole;
+		}
+
+		@Override
+		public void write(char[] cbuf, int off, int len) {
+			blackhole.consume(cbuf);
+		}
+
+		@Override
+		public Writer append(CharSequence csq) {
+			blackhole.consume(csq);
+			return this;
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
+}
@@ -0,0 +1,137 @@
+package com.deepoove.swagger.diff.benchmark;
+
+import io.swagger.models.Info;
+import io.swagger.models.Model;
+import io.swagger.models.ModelImpl;
+import io.swagger.models.Operation;
+import io.swagger.models.Path;
+import io.swagger.models.RefModel;
+import io.swagger.models.Response;
+import io.swagger.models.Swagger;
+import io.swagger.models.parameters.BodyParameter;
+import io.swagger.models.parameters.Parameter;
+import io.swagger.models.parameters.QueryParameter;
+import io.swagger.models.properties.RefProperty;
+import io.swagger.models.properties.StringProperty;
+import io.swagger.util.Json;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates swagger specs of a configurable size, and a changed version of
+ * them, to benchmark against.
+ * <p>
+ * Every path has a GET operation with query parameters and a POST operation
+ * with a body parameter, both using one of the root definitions. Each root
+ * definition is the head of a chain of {@code depth} definitions having
+ * {@code width} properties each. In the changed version every
+ * {@code changeEvery}-th parameter and property is renamed.
+ */
+public class SyntheticSpec {
+
+	private int paths = 100;
+	private int parameters = 5;
+	private int roots = 10;
+	private int depth = 3;
+	private int width = 5;
+	private int changeEvery = 10;
+
+	public SyntheticSpec paths(int paths) {
+		this.paths = paths;
+		return this;
+	}
+
+	public SyntheticSpec parameters(int parameters) {
+		this.parameters = parameters;
+		return this;
+	}
+
+	public SyntheticSpec roots(int roots) {
+		this.roots = roots;
+		return this;
+	}
+
+	public SyntheticSpec depth(int depth) {
+		this.depth = depth;
+		return this;
+	}
+
+	public SyntheticSpec width(int width) {
+		this.width = width;
+		return this;
+	}
+
+	public SyntheticSpec changeEvery(int changeEvery) {
+		this.changeEvery = changeEvery;
+		return this;
+	}
+
+	public Swagger build(boolean changed) {
+		Swagger swagger = new Swagger().info(new Info().title("synthetic").version(changed ? "2" : "1"));
+		for (int i = 0; i < paths; i++) {
+			String root = rootName(i % roots);
+			Operation get = new Operation().summary("get resource " + i)
+					.response(200, new Response().description("ok").schema(new RefProperty(root)));
+			for (Parameter parameter : parameters(parameters, changed)) {
+				get.parameter(parameter);
+			}
+			Operation post = new Operation().summary("create resource " + i)
+					.parameter(new BodyParameter().name("body").schema(new RefModel(root)))
+					.response(200, new Response().description("ok").schema(new RefProperty(root)));
+			swagger.path("/resource" + i, new Path().get(get).post(post));
+		}
+		swagger.setDefinitions(definitions(changed));
+		return swagger;
+	}
+
+	public List<Parameter> parameters(int count, boolean changed) {
+		List<Parameter> result = new ArrayList<Parameter>(count);
+		for (int i = 0; i < count; i++) {
+			result.add(new QueryParameter().name(name("param", i, changed)).type("string")
+					.description("query parameter " + i));
+		}
+		return result;
+	}
+
+	public Map<String, Model> definitions(boolean changed) {
+		Map<String, Model> definitions = new LinkedHashMap<String, Model>();
+		for (int root = 0; root < roots; root++) {
+			for (int level = 0; level < depth; level++) {
+				ModelImpl model = new ModelImpl();
+				for (int i = 0; i < width; i++) {
+					model.property(name("prop", i, changed), new StringProperty().description("property " + i));
+				}
+				if (level + 1 < depth) {
+					model.property("next", new RefProperty(definitionName(root, level + 1)));
+				}
+				definitions.put(definitionName(root, level), model);
+			}
+		}
+		return definitions;
+	}
+
+	public File write(boolean changed) throws IOException {
+		File file = File.createTempFile("synthetic-" + (changed ? "new" : "old"), ".json");
+		file.deleteOnExit();
+		Json.mapper().writeValue(file, build(changed));
+		return file;
+	}
+
+	public static String rootName(int root) {
+		return definitionName(root, 0);
+	}
+
+	private static String definitionName(int root, int level) {
+		return "Model" + root + "_" + level;
+	}
+
+	private String name(String prefix, int i, boolean changed) {
+		return changed && i % changeEvery == 0 ? prefix + i + "_v2" : prefix + i;
+	}
+
+}
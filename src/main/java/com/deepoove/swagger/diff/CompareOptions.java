@@ -0,0 +1,136 @@
+package com.deepoove.swagger.diff;
+
+import com.deepoove.swagger.diff.compare.TraversalBudget;
+import com.deepoove.swagger.diff.spec.SpecCache;
+import com.deepoove.swagger.diff.spec.SpecDownloads;
+import io.swagger.models.auth.AuthorizationValue;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * How spec files are read and compared by
+ * {@link SwaggerDiff#compare(String, String, CompareOptions)}. Defaults to
+ * reading v1.x specs on the calling thread.
+ */
+public class CompareOptions {
+
+	private List<AuthorizationValue> auths;
+	private String version;
+	private ExecutorService executor;
+	private boolean lazyResolve;
+	private SpecCache specCache;
+	private SpecDownloads downloads;
+	private DiffListener listener;
+	private TraversalBudget budget;
+
+	/**
+	 * Options to compare v2.0 spec files
+	 */
+	public static CompareOptions v2() {
+		return new CompareOptions().version(SwaggerDiff.SWAGGER_VERSION_V2);
+	}
+
+	/**
+	 * AuthorizationValues to be used parsing the spec files
+	 */
+	public CompareOptions auths(List<AuthorizationValue> auths) {
+		this.auths = auths;
+		return this;
+	}
+
+	/**
+	 * The version of the swagger spec files to be compared
+	 */
+	public CompareOptions version(String version) {
+		this.version = version;
+		return this;
+	}
+
+	/**
+	 * ExecutorService the work is run on, or null to run it on the calling thread;
+	 * must not be an executor whose only threads are busy waiting for the comparison
+	 */
+	public CompareOptions executor(ExecutorService executor) {
+		this.executor = executor;
+		return this;
+	}
+
+	/**
+	 * Whether refs to other files of v2.0 specs are resolved only when the
+	 * comparison first needs them, instead of all of them while parsing. The
+	 * specs are then read by the streaming {@code SpecReader}.
+	 */
+	public CompareOptions lazyResolve(boolean lazyResolve) {
+		this.lazyResolve = lazyResolve;
+		return this;
+	}
+
+	/**
+	 * Cache the spec files are looked up in before being parsed, or null to
+	 * parse them every time
+	 */
+	public CompareOptions specCache(SpecCache specCache) {
+		this.specCache = specCache;
+		return this;
+	}
+
+	/**
+	 * Downloaded copies remote v2.0 spec files are read from, revalidated with a
+	 * conditional request each time, or null to download them every time. Spec
+	 * files read from copies are not looked up in the spec cache.
+	 */
+	public CompareOptions downloads(SpecDownloads downloads) {
+		this.downloads = downloads;
+		return this;
+	}
+
+	/**
+	 * Listener told how long each stage of the comparison takes, or null
+	 */
+	public CompareOptions listener(DiffListener listener) {
+		this.listener = listener;
+		return this;
+	}
+
+	/**
+	 * Limits of the definition traversals, or null for none
+	 */
+	public CompareOptions budget(TraversalBudget budget) {
+		this.budget = budget;
+		return this;
+	}
+
+	public List<AuthorizationValue> getAuths() {
+		return auths;
+	}
+
+	public String getVersion() {
+		return version;
+	}
+
+	public ExecutorService getExecutor() {
+		return executor;
+	}
+
+	public boolean isLazyResolve() {
+		return lazyResolve;
+	}
+
+	public SpecCache getSpecCache() {
+		return specCache;
+	}
+
+	public SpecDownloads getDownloads() {
+		return downloads;
+	}
+
+	public DiffListener getListener() {
+		return listener;
+	}
+
+	public TraversalBudget getBudget() {
+		return budget;
+	}
+
+}
@@ -0,0 +1,46 @@
+package com.deepoove.swagger.diff;
+
+/**
+ * Told how long each stage of a comparison takes, to feed timers and counters.
+ * Set with {@link CompareOptions#listener(DiffListener)}.
+ * <p>
+ * Stages run on the threads of the executor when comparing concurrently, so
+ * implementations must be safe to call from several threads. Times are in
+ * nanoseconds.
+ *
+ * @see DiffListenerAdapter
+ */
+public interface DiffListener {
+
+	/**
+	 * A spec file was read, or found in the spec cache
+	 */
+	void specRead(String location, long nanos);
+
+	/**
+	 * The paths of both specs were matched by url
+	 */
+	void pathsMatched(int shared, int increased, int missing, long nanos);
+
+	/**
+	 * The operations of a path shared by both specs were compared
+	 *
+	 * @param modelNodes   Definitions expanded comparing the path, including cached ones
+	 * @param modelDepth   Deepest nesting of definitions reached
+	 * @param elProperties ElProperty instances created
+	 */
+	void endpointCompared(String pathUrl, long nanos, int modelNodes, int modelDepth, int elProperties);
+
+	/**
+	 * Two spec files were compared, from reading them to the result
+	 */
+	void compared(String oldSpec, String newSpec, long nanos);
+
+	/**
+	 * A comparison was rendered
+	 *
+	 * @param format The format, like html or markdown
+	 */
+	void rendered(String format, long nanos);
+
+}
@@ -0,0 +1,24 @@
+package com.deepoove.swagger.diff;
+
+/**
+ * {@link DiffListener} ignoring every stage, to extend when only some of them
+ * are of interest
+ */
+public class DiffListenerAdapter implements DiffListener {
+
+	public void specRead(String location, long nanos) {
+	}
+
+	public void pathsMatched(int shared, int increased, int missing, long nanos) {
+	}
+
+	public void endpointCompared(String pathUrl, long nanos, int modelNodes, int modelDepth, int elProperties) {
+	}
+
+	public void compared(String oldSpec, String newSpec, long nanos) {
+	}
+
+	public void rendered(String format, long nanos) {
+	}
+
+}
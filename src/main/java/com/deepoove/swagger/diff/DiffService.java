@@ -0,0 +1,174 @@
+package com.deepoove.swagger.diff;
+
+import com.google.common.base.Function;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.swagger.models.Swagger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs comparisons asynchronously, for servers handling many of them at once.
+ * <p>
+ * Reading specs, which mostly waits on the network, runs on a virtual thread
+ * per read on JDK 21 and later, and on a bounded pool otherwise. Comparing
+ * them, which is CPU bound, runs on another bounded pool, so slow spec
+ * locations do not hold the threads comparisons need. At most
+ * {@code maxInFlight} comparisons are admitted at a time: {@link #compare}
+ * waits for one of them to complete, {@link #tryCompare} fails right away.
+ * A comparison counts until both of its reads and its compare step have
+ * ended, even when it failed or was cancelled earlier.
+ */
+public class DiffService {
+
+	private final ListeningExecutorService readers;
+	private final ListeningExecutorService comparers;
+	private final Semaphore inFlight;
+
+	private DiffService(int readThreads, int compareThreads, int maxInFlight) {
+		ExecutorService readPool = virtualThreads();
+		if (null == readPool) {
+			readPool = Executors.newFixedThreadPool(readThreads,
+					new ThreadFactoryBuilder().setNameFormat("swagger-diff-read-%d").setDaemon(true).build());
+		}
+		this.readers = MoreExecutors.listeningDecorator(readPool);
+		this.comparers = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(compareThreads,
+				new ThreadFactoryBuilder().setNameFormat("swagger-diff-compare-%d").setDaemon(true).build()));
+		this.inFlight = new Semaphore(maxInFlight);
+	}
+
+	/**
+	 * @param readThreads    Threads reading spec files, when virtual threads are not available
+	 * @param compareThreads Threads comparing read specs
+	 * @param maxInFlight    Comparisons admitted at a time
+	 */
+	public static DiffService create(int readThreads, int compareThreads, int maxInFlight) {
+		return new DiffService(readThreads, compareThreads, maxInFlight);
+	}
+
+	/**
+	 * Service comparing on one thread per processor, reading on virtual threads
+	 * or else on 4 threads per processor, and admitting 16 comparisons per processor
+	 */
+	public static DiffService create() {
+		final int processors = Runtime.getRuntime().availableProcessors();
+		return create(4 * processors, processors, 16 * processors);
+	}
+
+	/**
+	 * Compares two v2.0 Swagger spec files, see {@link #compare(String, String, CompareOptions)}
+	 */
+	public ListenableFuture<SwaggerDiff> compareV2(String oldSpec, String newSpec) throws InterruptedException {
+		return compare(oldSpec, newSpec, CompareOptions.v2());
+	}
+
+	/**
+	 * Compares two swagger spec files with the given options, waiting first
+	 * while the service is running as many comparisons as it admits. The
+	 * executor of the options is not used.
+	 *
+	 * @param oldSpec Location (File or Http) of the spec file
+	 * @param newSpec Location (File or Http) of the spec file
+	 * @param options How the spec files are read and compared
+	 */
+	public ListenableFuture<SwaggerDiff> compare(String oldSpec, String newSpec, CompareOptions options)
+			throws InterruptedException {
+		inFlight.acquire();
+		return submit(oldSpec, newSpec, options);
+	}
+
+	/**
+	 * Compares two swagger spec files like {@link #compare(String, String, CompareOptions)},
+	 * but gives a future failed with a {@link RejectedExecutionException} rather
+	 * than waiting when the service is running as many comparisons as it admits
+	 */
+	public ListenableFuture<SwaggerDiff> tryCompare(String oldSpec, String newSpec, CompareOptions options) {
+		if (!inFlight.tryAcquire()) {
+			return Futures.immediateFailedFuture(new RejectedExecutionException("too many swagger diffs in flight."));
+		}
+		return submit(oldSpec, newSpec, options);
+	}
+
+	/**
+	 * Comparisons that may still be admitted
+	 */
+	public int availablePermits() {
+		return inFlight.availablePermits();
+	}
+
+	/**
+	 * Stops accepting comparisons, the ones already admitted run to completion
+	 */
+	public void shutdown() {
+		readers.shutdown();
+		comparers.shutdown();
+	}
+
+	/**
+	 * Reads both specs and compares them once both reads have ended, failing
+	 * with the failure of a read if any. The permit is released when the work
+	 * has ended, before the returned future completes; cancelling the returned
+	 * future does not stop the work.
+	 */
+	private ListenableFuture<SwaggerDiff> submit(final String oldSpec, final String newSpec, final CompareOptions options) {
+		final long start = System.nanoTime();
+		final List<ListenableFuture<Swagger>> reads = new ArrayList<ListenableFuture<Swagger>>(2);
+		ListenableFuture<SwaggerDiff> work;
+		try {
+			reads.add(readers.submit(readTask(oldSpec, options)));
+			reads.add(readers.submit(readTask(newSpec, options)));
+			work = Futures.transform(Futures.successfulAsList(reads), new Function<List<Swagger>, SwaggerDiff>() {
+				public SwaggerDiff apply(List<Swagger> specs) {
+					final SwaggerDiff diff = SwaggerDiff.compare(oldSpec, SwaggerDiff.await(reads.get(0)),
+							newSpec, SwaggerDiff.await(reads.get(1)), options);
+					if (null != options.getListener()) {
+						options.getListener().compared(oldSpec, newSpec, System.nanoTime() - start);
+					}
+					return diff;
+				}
+			}, comparers);
+		} catch (final RejectedExecutionException e) {
+			work = Futures.transform(Futures.successfulAsList(reads), new Function<List<Swagger>, SwaggerDiff>() {
+				public SwaggerDiff apply(List<Swagger> specs) {
+					throw e;
+				}
+			});
+		}
+		work.addListener(new Runnable() {
+			public void run() {
+				inFlight.release();
+			}
+		}, MoreExecutors.directExecutor());
+		return Futures.nonCancellationPropagating(work);
+	}
+
+	/**
+	 * Executor starting a virtual thread per task, looked up so that the
+	 * library still runs on older JDKs, or null when there is none
+	 */
+	private static ExecutorService virtualThreads() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	private static Callable<Swagger> readTask(final String spec, final CompareOptions options) {
+		return new Callable<Swagger>() {
+			public Swagger call() {
+				return SwaggerDiff.read(spec, options);
+			}
+		};
+	}
+
+}
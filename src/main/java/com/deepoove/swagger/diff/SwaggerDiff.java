@@ -1,11 +1,28 @@
 package com.deepoove.swagger.diff;
 
+import com.deepoove.swagger.diff.compare.DependencyGraph;
+import com.deepoove.swagger.diff.compare.DiffContext;
+import com.deepoove.swagger.diff.compare.Fingerprint;
 import com.deepoove.swagger.diff.compare.MapKeyDiff;
 import com.deepoove.swagger.diff.compare.ParameterDiff;
 import com.deepoove.swagger.diff.compare.PropertyDiff;
+import com.deepoove.swagger.diff.compare.RefResolver;
+import com.deepoove.swagger.diff.compare.ResponseDiff;
+import com.deepoove.swagger.diff.compare.TraversalBudget;
+import com.deepoove.swagger.diff.compare.TraversalStats;
 import com.deepoove.swagger.diff.model.ChangedEndpoint;
 import com.deepoove.swagger.diff.model.ChangedOperation;
+import com.deepoove.swagger.diff.model.ChangedParameter;
+import com.deepoove.swagger.diff.model.ChangedResponse;
+import com.deepoove.swagger.diff.model.DetachedParameter;
+import com.deepoove.swagger.diff.model.DetachedProperty;
+import com.deepoove.swagger.diff.model.ElProperty;
 import com.deepoove.swagger.diff.model.Endpoint;
+import com.deepoove.swagger.diff.spec.LazyRefResolver;
+import com.deepoove.swagger.diff.spec.SpecCache;
+import com.deepoove.swagger.diff.spec.SpecDownloads;
+import com.deepoove.swagger.diff.spec.SpecReader;
+import com.google.common.collect.Lists;
 import io.swagger.models.*;
 import io.swagger.models.auth.AuthorizationValue;
 import io.swagger.models.parameters.Parameter;
@@ -15,21 +32,50 @@ import io.swagger.parser.SwaggerParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 public class SwaggerDiff {
 	public static final String SWAGGER_VERSION_V2 = "2.0";
 
 	private static Logger logger = LoggerFactory.getLogger(SwaggerDiff.class);
 
+	/**
+	 * Number of shared paths compared by one task when comparing on an executor
+	 */
+	private static final int PATHS_PER_TASK = 32;
+
 	private Swagger oldSpecSwagger;
 	private Swagger newSpecSwagger;
 
+	private ExecutorService executor;
+	private DiffListener listener;
+	private TraversalBudget budget;
+	private DiffContext diffContext;
+
+	private Fingerprint oldFingerprint;
+	private Fingerprint newFingerprint;
+
+	private RefResolver oldResolver;
+	private RefResolver newResolver;
+
+	/**
+	 * Keys of the operations that may have changed, or null when all of them
+	 * are compared
+	 */
+	private Set<String> changedOperations;
+
 	private List<Endpoint> newEndpoints;
 	private List<Endpoint> missingEndpoints;
 	private List<ChangedEndpoint> changedEndpoints;
+	private List<String> truncatedPaths;
 
 	/**
 	 * Compares two v1.x Swagger spec files
@@ -60,98 +106,606 @@ public class SwaggerDiff {
 	 * @param version The version of the swagger spec files to be compared
 	 */
 	public static SwaggerDiff compare(String oldSpec, String newSpec, List<AuthorizationValue> auths, String version) {
-		return new SwaggerDiff(oldSpec, newSpec, auths, version).compare();
+		return compare(oldSpec, newSpec, auths, version, null);
 	}
 
-	private SwaggerDiff(String oldSpec, String newSpec, List<AuthorizationValue> auths, String version) {
-		if (SWAGGER_VERSION_V2.equals(version)) {
-			final SwaggerParser swaggerParser = new SwaggerParser();
-			oldSpecSwagger = swaggerParser.read(oldSpec, auths, true);
-			newSpecSwagger = swaggerParser.read(newSpec, auths, true);
+	/**
+	 * Compares two swagger spec files of a given version with the given authorizations,
+	 * parsing and resolving both spec files and comparing the shared paths concurrently.
+	 * The result is the same as the one of a sequential comparison, in the same order.
+	 *
+	 * @param oldSpec  Location (File or Http) of the spec file
+	 * @param newSpec  Location (File or Http) of the spec file
+	 * @param auths    AuthorizationValues to be used parsing the spec file
+	 * @param version  The version of the swagger spec files to be compared
+	 * @param executor ExecutorService the work is run on, or null to run it on the calling thread;
+	 *                 must not be an executor whose only threads are busy waiting for this comparison
+	 */
+	public static SwaggerDiff compare(String oldSpec, String newSpec, List<AuthorizationValue> auths, String version, ExecutorService executor) {
+		return compare(oldSpec, newSpec, new CompareOptions().auths(auths).version(version).executor(executor));
+	}
+
+	/**
+	 * Compares two swagger spec files with the given options
+	 *
+	 * @param oldSpec Location (File or Http) of the spec file
+	 * @param newSpec Location (File or Http) of the spec file
+	 * @param options How the spec files are read and compared
+	 */
+	public static SwaggerDiff compare(String oldSpec, String newSpec, CompareOptions options) {
+		final long start = System.nanoTime();
+		final SwaggerDiff diff = new SwaggerDiff(oldSpec, newSpec, options).compare();
+		if (null != diff.listener) {
+			diff.listener.compared(oldSpec, newSpec, System.nanoTime() - start);
+		}
+		return diff;
+	}
+
+	/**
+	 * Compares one v2.0 baseline spec file with each of the candidate spec files
+	 *
+	 * @param baseline   Location (File or Http) of the baseline spec file
+	 * @param candidates Locations (File or Http) of the candidate spec files
+	 * @param executor   ExecutorService the candidates are compared on, or null to compare them on the calling thread
+	 * @return The comparison of the baseline with each candidate, in the order of the candidates
+	 */
+	public static Map<String, SwaggerDiff> compareAllV2(String baseline, List<String> candidates, ExecutorService executor) {
+		return compareAll(baseline, candidates, null, SWAGGER_VERSION_V2, executor);
+	}
+
+	/**
+	 * Compares one baseline spec file with each of the candidate spec files. The
+	 * baseline is parsed and fingerprinted once and shared, read only, by the
+	 * comparisons of all candidates; each candidate is parsed and compared by one
+	 * task of the executor.
+	 *
+	 * @param baseline   Location (File or Http) of the baseline spec file
+	 * @param candidates Locations (File or Http) of the candidate spec files
+	 * @param auths      AuthorizationValues to be used parsing the spec files
+	 * @param version    The version of the swagger spec files to be compared
+	 * @param executor   ExecutorService the candidates are compared on, or null to compare them on the calling thread
+	 * @return The comparison of the baseline with each candidate, in the order of the candidates
+	 */
+	public static Map<String, SwaggerDiff> compareAll(String baseline, List<String> candidates, final List<AuthorizationValue> auths,
+													  final String version, ExecutorService executor) {
+		final Swagger baselineSwagger = read(baseline, auths, version);
+		if (baselineSwagger == null) {
+			throw new RuntimeException("cannot read api-doc from spec.");
+		}
+		final Fingerprint baselineFingerprint = Fingerprint.of(baselineSwagger);
+
+		final Map<String, SwaggerDiff> diffs = new LinkedHashMap<String, SwaggerDiff>();
+		if (null == executor) {
+			for (String candidate : candidates) {
+				diffs.put(candidate, compare(baselineSwagger, baselineFingerprint, read(candidate, auths, version), null));
+			}
+			return diffs;
+		}
+
+		final Map<String, Future<SwaggerDiff>> futures = new LinkedHashMap<String, Future<SwaggerDiff>>();
+		try {
+			for (final String candidate : candidates) {
+				if (futures.containsKey(candidate)) continue;
+				futures.put(candidate, executor.submit(new Callable<SwaggerDiff>() {
+					public SwaggerDiff call() {
+						return compare(baselineSwagger, baselineFingerprint, read(candidate, auths, version), null);
+					}
+				}));
+			}
+			for (Entry<String, Future<SwaggerDiff>> entry : futures.entrySet()) {
+				diffs.put(entry.getKey(), await(entry.getValue()));
+			}
+			return diffs;
+		} finally {
+			for (Future<SwaggerDiff> future : futures.values()) {
+				future.cancel(true);
+			}
+		}
+	}
+
+	/**
+	 * Compares two v2.0 swagger spec files, JSON or YAML, read with the streaming
+	 * {@link SpecReader} which keeps only what the comparison needs
+	 *
+	 * @param oldSpec The old spec file
+	 * @param newSpec The new spec file
+	 */
+	public static SwaggerDiff compare(File oldSpec, File newSpec) throws IOException {
+		return compare(SpecReader.read(oldSpec), SpecReader.read(newSpec));
+	}
+
+	/**
+	 * Compares two v2.0 swagger specs, JSON or YAML, read with the streaming
+	 * {@link SpecReader} which keeps only what the comparison needs. The streams
+	 * are not closed.
+	 *
+	 * @param oldSpec The old spec
+	 * @param newSpec The new spec
+	 */
+	public static SwaggerDiff compare(InputStream oldSpec, InputStream newSpec) throws IOException {
+		return compare(SpecReader.read(oldSpec), SpecReader.read(newSpec));
+	}
+
+	/**
+	 * Compares two parsed swagger specs
+	 *
+	 * @param oldSpec The old spec
+	 * @param newSpec The new spec
+	 */
+	public static SwaggerDiff compare(Swagger oldSpec, Swagger newSpec) {
+		return compare(oldSpec, null, newSpec, null);
+	}
+
+	/**
+	 * Compares two parsed swagger specs whose fingerprints may already be known.
+	 * Paths having the same hash in both fingerprints are not compared, so their
+	 * Path may be left empty in the specs.
+	 *
+	 * @param oldSpec        The old spec
+	 * @param oldFingerprint Fingerprint of the old spec, or null to compute it
+	 * @param newSpec        The new spec
+	 * @param newFingerprint Fingerprint of the new spec, or null to compute it
+	 */
+	public static SwaggerDiff compare(Swagger oldSpec, Fingerprint oldFingerprint,
+									  Swagger newSpec, Fingerprint newFingerprint) {
+		final SwaggerDiff diff = new SwaggerDiff(oldSpec, newSpec, null);
+		diff.oldFingerprint = oldFingerprint;
+		diff.newFingerprint = newFingerprint;
+		return diff.compare();
+	}
+
+	private SwaggerDiff(Swagger oldSpecSwagger, Swagger newSpecSwagger, ExecutorService executor) {
+		if (oldSpecSwagger == null || newSpecSwagger == null) {
+			throw new RuntimeException("cannot read api-doc from spec.");
+		}
+		this.oldSpecSwagger = oldSpecSwagger;
+		this.newSpecSwagger = newSpecSwagger;
+		this.executor = executor;
+	}
+
+	/**
+	 * Compares two specs already read as the options say, on the calling thread
+	 * whatever the executor of the options
+	 */
+	static SwaggerDiff compare(String oldSpec, Swagger oldSpecSwagger, String newSpec, Swagger newSpecSwagger,
+							   CompareOptions options) {
+		final SwaggerDiff diff = new SwaggerDiff(oldSpecSwagger, newSpecSwagger, null);
+		diff.configure(oldSpec, newSpec, options);
+		return diff.compare();
+	}
+
+	private SwaggerDiff(String oldSpec, String newSpec, CompareOptions options) {
+		this.executor = options.getExecutor();
+		if (null == executor) {
+			oldSpecSwagger = read(oldSpec, options);
+			newSpecSwagger = read(newSpec, options);
 		} else {
-			final SwaggerCompatConverter swaggerCompatConverter = new SwaggerCompatConverter();
+			final Future<Swagger> oldFuture = executor.submit(readTask(oldSpec, options));
+			final Future<Swagger> newFuture = executor.submit(readTask(newSpec, options));
 			try {
-				oldSpecSwagger = swaggerCompatConverter.read(oldSpec, auths);
-				newSpecSwagger = swaggerCompatConverter.read(newSpec, auths);
-			} catch (IOException e) {
-				logger.error("cannot read api-doc from spec[version_v1.x]", e);
-				return;
+				oldSpecSwagger = await(oldFuture);
+				newSpecSwagger = await(newFuture);
+			} finally {
+				oldFuture.cancel(true);
+				newFuture.cancel(true);
 			}
 		}
 
 		if (oldSpecSwagger == null || newSpecSwagger == null) {
 			throw new RuntimeException("cannot read api-doc from spec.");
 		}
+		configure(oldSpec, newSpec, options);
+	}
+
+	private void configure(String oldSpec, String newSpec, CompareOptions options) {
+		this.listener = options.getListener();
+		this.budget = options.getBudget();
+		if (options.isLazyResolve() && SWAGGER_VERSION_V2.equals(options.getVersion())) {
+			oldResolver = new LazyRefResolver(oldSpec, options.getAuths());
+			newResolver = new LazyRefResolver(newSpec, options.getAuths());
+		}
+	}
+
+	private static Swagger read(String spec, List<AuthorizationValue> auths, String version) {
+		return read(spec, auths, version, true);
+	}
+
+	/**
+	 * Reads a spec as the options say, from its downloaded copy or through the
+	 * spec cache when there are some
+	 */
+	static Swagger read(final String spec, CompareOptions options) {
+		final List<AuthorizationValue> auths = options.getAuths();
+		final String version = options.getVersion();
+		final boolean resolve = !options.isLazyResolve();
+		final SpecCache specCache = options.getSpecCache();
+		final SpecDownloads downloads = options.getDownloads();
+		final long start = System.nanoTime();
+		final Swagger swagger;
+		if (null != downloads && SWAGGER_VERSION_V2.equals(version) && SpecDownloads.isRemote(spec)) {
+			swagger = read(downloads, spec, auths, resolve);
+		} else if (null == specCache) {
+			swagger = read(spec, auths, version, resolve);
+		} else {
+			final String variant = (null == version ? "1.x" : version) + (resolve ? "" : "/lazy");
+			swagger = specCache.get(spec, auths, variant, new Callable<Swagger>() {
+				public Swagger call() {
+					return read(spec, auths, version, resolve);
+				}
+			});
+		}
+		if (null != options.getListener()) {
+			options.getListener().specRead(spec, System.nanoTime() - start);
+		}
+		return swagger;
+	}
+
+	/**
+	 * @param resolve Whether refs to other files of a v2.0 spec are resolved while parsing,
+	 *                otherwise the spec is read as is by the {@link SpecReader}
+	 */
+	private static Swagger read(String spec, List<AuthorizationValue> auths, String version, boolean resolve) {
+		if (SWAGGER_VERSION_V2.equals(version)) {
+			if (resolve) {
+				return new SwaggerParser().read(spec, auths, true);
+			}
+			try {
+				return SpecReader.read(spec, auths);
+			} catch (IOException e) {
+				logger.error("cannot read api-doc from spec[version_v2.0]", e);
+				return null;
+			}
+		}
+		try {
+			return new SwaggerCompatConverter().read(spec, auths);
+		} catch (IOException e) {
+			logger.error("cannot read api-doc from spec[version_v1.x]", e);
+			return null;
+		}
+	}
+
+	private static Swagger read(SpecDownloads downloads, String spec, List<AuthorizationValue> auths, boolean resolve) {
+		try {
+			return downloads.read(spec, auths, resolve);
+		} catch (IOException e) {
+			logger.error("cannot read api-doc from spec[version_v2.0]", e);
+			return null;
+		}
+	}
+
+	private static Callable<Swagger> readTask(final String spec, final CompareOptions options) {
+		return new Callable<Swagger>() {
+			public Swagger call() {
+				return read(spec, options);
+			}
+		};
+	}
+
+	/**
+	 * Waits for a task and rethrows its failure as is, so parsing on an executor
+	 * fails the same way parsing on the calling thread does.
+	 */
+	static <T> T await(Future<T> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("interrupted while waiting for swagger diff task.", e);
+		} catch (ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new RuntimeException(cause);
+		}
 	}
 
 	private SwaggerDiff compare() {
 		final Map<String, Path> oldPaths = oldSpecSwagger.getPaths();
 		final Map<String, Path> newPaths = newSpecSwagger.getPaths();
+		final long start = System.nanoTime();
 		final MapKeyDiff<String, Path> pathDiff = MapKeyDiff.diff(oldPaths, newPaths);
+		if (null != listener) {
+			listener.pathsMatched(pathDiff.getSharedKey().size(), size(pathDiff.getIncreased()),
+					size(pathDiff.getMissing()), System.nanoTime() - start);
+		}
 
 		this.newEndpoints = convert2EndpointList(pathDiff.getIncreased());
 		this.missingEndpoints = convert2EndpointList(pathDiff.getMissing());
 		this.changedEndpoints = new ArrayList<ChangedEndpoint>();
+		this.truncatedPaths = new ArrayList<String>();
+		fingerprint();
+		this.diffContext = new DiffContext(oldSpecSwagger.getDefinitions(), newSpecSwagger.getDefinitions(),
+				oldFingerprint, newFingerprint, oldResolver, newResolver).budget(budget);
+
+		final DependencyGraph oldGraph = oldFingerprint.getGraph();
+		final DependencyGraph newGraph = newFingerprint.getGraph();
+		if (null != oldGraph && null != newGraph) {
+			this.changedOperations = DependencyGraph.changedOperations(oldGraph, newGraph);
+		}
 
-		final List<String> sharedKey = pathDiff.getSharedKey();
-		ChangedEndpoint changedEndpoint = null;
-		for (String pathUrl : sharedKey) {
-			changedEndpoint = new ChangedEndpoint();
-			changedEndpoint.setPathUrl(pathUrl);
-			Path oldPath = oldPaths.get(pathUrl);
-			Path newPath = newPaths.get(pathUrl);
-
-			final Map<HttpMethod, Operation> oldOperationMap = oldPath.getOperationMap();
-			final Map<HttpMethod, Operation> newOperationMap = newPath.getOperationMap();
-			final MapKeyDiff<HttpMethod, Operation> operationDiff = MapKeyDiff.diff(oldOperationMap, newOperationMap);
-			final Map<HttpMethod, Operation> increasedOperation = operationDiff.getIncreased();
-			final Map<HttpMethod, Operation> missingOperation = operationDiff.getMissing();
-			changedEndpoint.setNewOperations(increasedOperation);
-			changedEndpoint.setMissingOperations(missingOperation);
-
-			final List<HttpMethod> sharedMethods = operationDiff.getSharedKey();
-			final Map<HttpMethod, ChangedOperation> changedOperations = new HashMap<HttpMethod, ChangedOperation>();
-			ChangedOperation changedOperation = null;
-			for (HttpMethod method : sharedMethods) {
-				changedOperation = new ChangedOperation();
-				final Operation oldOperation = oldOperationMap.get(method);
-				final Operation newOperation = newOperationMap.get(method);
-				changedOperation.setSummary(newOperation.getSummary());
-
-				final List<Parameter> oldParameters = oldOperation.getParameters();
-				final List<Parameter> newParameters = newOperation.getParameters();
-				final ParameterDiff parameterDiff = ParameterDiff.buildWithDefinition(oldSpecSwagger.getDefinitions(), newSpecSwagger.getDefinitions()).diff(oldParameters, newParameters);
-				changedOperation.setAddParameters(parameterDiff.getIncreased());
-				changedOperation.setMissingParameters(parameterDiff.getMissing());
-				changedOperation.setChangedParameter(parameterDiff.getChanged());
-
-				final Property oldResponseProperty = getResponseProperty(oldOperation);
-				final Property newResponseProperty = getResponseProperty(newOperation);
-				final PropertyDiff propertyDiff = PropertyDiff.buildWithDefinition(oldSpecSwagger.getDefinitions(), newSpecSwagger.getDefinitions());
-				propertyDiff.diff(oldResponseProperty, newResponseProperty);
-				changedOperation.setAddProps(propertyDiff.getIncreased());
-				changedOperation.setMissingProps(propertyDiff.getMissing());
-
-				if (changedOperation.isDiff()) {
-					changedOperations.put(method, changedOperation);
-				}
+		final List<String> sharedKey = new ArrayList<String>();
+		for (String pathUrl : pathDiff.getSharedKey()) {
+			if (!Fingerprint.same(oldFingerprint.getPathHash(pathUrl), newFingerprint.getPathHash(pathUrl))
+					&& (isChanged(pathUrl, oldPaths.get(pathUrl)) || isChanged(pathUrl, newPaths.get(pathUrl)))) {
+				sharedKey.add(pathUrl);
 			}
-			changedEndpoint.setChangedOperations(changedOperations);
-
+		}
+		final List<ChangedEndpoint> comparedEndpoints = null == executor
+				? compareEndpoints(sharedKey, oldPaths, newPaths)
+				: compareEndpointsConcurrently(sharedKey, oldPaths, newPaths);
+		for (ChangedEndpoint changedEndpoint : comparedEndpoints) {
 			this.newEndpoints.addAll(convert2EndpointList(changedEndpoint.getPathUrl(), changedEndpoint.getNewOperations()));
 			this.missingEndpoints.addAll(convert2EndpointList(changedEndpoint.getPathUrl(), changedEndpoint.getMissingOperations()));
 
 			if (changedEndpoint.isDiff()) {
 				changedEndpoints.add(changedEndpoint);
 			}
+			if (changedEndpoint.isTruncated()) {
+				truncatedPaths.add(changedEndpoint.getPathUrl());
+			}
 		}
 
+		this.oldSpecSwagger = null;
+		this.newSpecSwagger = null;
+		this.diffContext = null;
+		this.changedOperations = null;
+		this.oldResolver = null;
+		this.newResolver = null;
 		return this;
 	}
 
-	private Property getResponseProperty(Operation operation) {
+	/**
+	 * Whether an operation of the path may have changed
+	 */
+	private boolean isChanged(String pathUrl, Path path) {
+		for (HttpMethod method : path.getOperationMap().keySet()) {
+			if (isChanged(pathUrl, method)) return true;
+		}
+		return false;
+	}
+
+	private boolean isChanged(String pathUrl, HttpMethod method) {
+		return null == changedOperations || changedOperations.contains(DependencyGraph.operationKey(pathUrl, method));
+	}
+
+	/**
+	 * Hashes both specs, so that shared paths and definitions whose hashes match
+	 * are known to be unchanged without comparing them.
+	 */
+	private void fingerprint() {
+		if (null == executor || null != oldFingerprint || null != newFingerprint) {
+			if (null == oldFingerprint) oldFingerprint = Fingerprint.of(oldSpecSwagger);
+			if (null == newFingerprint) newFingerprint = Fingerprint.of(newSpecSwagger);
+			return;
+		}
+		final Future<Fingerprint> oldFuture = executor.submit(fingerprintTask(oldSpecSwagger));
+		final Future<Fingerprint> newFuture = executor.submit(fingerprintTask(newSpecSwagger));
+		try {
+			oldFingerprint = await(oldFuture);
+			newFingerprint = await(newFuture);
+		} finally {
+			oldFuture.cancel(true);
+			newFuture.cancel(true);
+		}
+	}
+
+	private static Callable<Fingerprint> fingerprintTask(final Swagger swagger) {
+		return new Callable<Fingerprint>() {
+			public Fingerprint call() {
+				return Fingerprint.of(swagger);
+			}
+		};
+	}
+
+	/**
+	 * Replaces the parsed spec objects the result refers to by copies
+	 * of what the renderers use, so a kept result does not keep the parsed specs
+	 * reachable. Endpoints lose their Path and Operation, the operations of
+	 * changed endpoints keep only their summary.
+	 */
+	public SwaggerDiff detach() {
+		final Map<Property, Property> properties = new IdentityHashMap<Property, Property>();
+		detachEndpoints(newEndpoints);
+		detachEndpoints(missingEndpoints);
+		for (ChangedEndpoint changedEndpoint : changedEndpoints) {
+			changedEndpoint.setNewOperations(detachOperations(changedEndpoint.getNewOperations()));
+			changedEndpoint.setMissingOperations(detachOperations(changedEndpoint.getMissingOperations()));
+			for (ChangedOperation changedOperation : changedEndpoint.getChangedOperations().values()) {
+				changedOperation.setAddParameters(detachParameters(changedOperation.getAddParameters()));
+				changedOperation.setMissingParameters(detachParameters(changedOperation.getMissingParameters()));
+				for (ChangedParameter changedParameter : changedOperation.getChangedParameter()) {
+					changedParameter.setLeftParameter(DetachedParameter.of(changedParameter.getLeftParameter()));
+					changedParameter.setRightParameter(DetachedParameter.of(changedParameter.getRightParameter()));
+					detachProperties(changedParameter.getIncreased(), properties);
+					detachProperties(changedParameter.getMissing(), properties);
+				}
+				detachProperties(changedOperation.getAddProps(), properties);
+				detachProperties(changedOperation.getMissingProps(), properties);
+				changedOperation.setAddResponses(detachResponses(changedOperation.getAddResponses()));
+				changedOperation.setMissingResponses(detachResponses(changedOperation.getMissingResponses()));
+				for (ChangedResponse changedResponse : changedOperation.getChangedResponses().values()) {
+					detachProperties(changedResponse.getAddProps(), properties);
+					detachProperties(changedResponse.getMissingProps(), properties);
+					detachHeaders(changedResponse.getAddHeaders());
+					detachHeaders(changedResponse.getMissingHeaders());
+				}
+			}
+		}
+
+		return this;
+	}
+
+	private static void detachEndpoints(List<Endpoint> endpoints) {
+		for (Endpoint endpoint : endpoints) {
+			endpoint.setPath(null);
+			endpoint.setOperation(null);
+		}
+	}
+
+	private static Map<HttpMethod, Operation> detachOperations(Map<HttpMethod, Operation> operations) {
+		if (null == operations) return null;
+		final Map<HttpMethod, Operation> detached = new LinkedHashMap<HttpMethod, Operation>();
+		for (Entry<HttpMethod, Operation> entry : operations.entrySet()) {
+			detached.put(entry.getKey(), new Operation().summary(entry.getValue().getSummary()));
+		}
+
+		return detached;
+	}
+
+	private static List<Parameter> detachParameters(List<Parameter> parameters) {
+		final List<Parameter> detached = new ArrayList<Parameter>(parameters.size());
+		for (Parameter parameter : parameters) {
+			detached.add(DetachedParameter.of(parameter));
+		}
+
+		return detached;
+	}
+
+	private static Map<String, Response> detachResponses(Map<String, Response> responses) {
+		final Map<String, Response> detached = new LinkedHashMap<String, Response>();
+		for (Entry<String, Response> entry : responses.entrySet()) {
+			detached.put(entry.getKey(), new Response().description(entry.getValue().getDescription()));
+		}
+
+		return detached;
+	}
+
+	private static void detachHeaders(Map<String, Property> headers) {
+		for (Entry<String, Property> entry : headers.entrySet()) {
+			entry.setValue(DetachedProperty.of(entry.getValue()));
+		}
+	}
+
+	/**
+	 * Properties reached through a shared definition are the same objects in
+	 * many operations, so each of them is copied once.
+	 */
+	private static void detachProperties(List<ElProperty> elProperties, Map<Property, Property> properties) {
+		for (ElProperty elProperty : elProperties) {
+			final Property property = elProperty.getProperty();
+			Property detached = properties.get(property);
+			if (null == detached) {
+				detached = DetachedProperty.of(property);
+				properties.put(property, detached);
+			}
+			elProperty.setProperty(detached);
+		}
+	}
+
+	private List<ChangedEndpoint> compareEndpoints(List<String> pathUrls, Map<String, Path> oldPaths, Map<String, Path> newPaths) {
+		final List<ChangedEndpoint> endpoints = new ArrayList<ChangedEndpoint>(pathUrls.size());
+		for (String pathUrl : pathUrls) {
+			if (null == listener) {
+				endpoints.add(compareEndpoint(pathUrl, oldPaths.get(pathUrl), newPaths.get(pathUrl)));
+				continue;
+			}
+			final TraversalStats stats = diffContext.getTraversalStats();
+			stats.reset();
+			final long start = System.nanoTime();
+			endpoints.add(compareEndpoint(pathUrl, oldPaths.get(pathUrl), newPaths.get(pathUrl)));
+			listener.endpointCompared(pathUrl, System.nanoTime() - start,
+					stats.getNodes(), stats.getMaxDepth(), stats.getElProperties());
+		}
+
+		return endpoints;
+	}
+
+	/**
+	 * Compares the shared paths in chunks on the executor, and joins the chunks
+	 * in submission order so the result does not depend on scheduling.
+	 */
+	private List<ChangedEndpoint> compareEndpointsConcurrently(List<String> pathUrls, final Map<String, Path> oldPaths,
+															   final Map<String, Path> newPaths) {
+		final List<Future<List<ChangedEndpoint>>> futures = new ArrayList<Future<List<ChangedEndpoint>>>();
+		try {
+			for (final List<String> chunk : Lists.partition(pathUrls, PATHS_PER_TASK)) {
+				futures.add(executor.submit(new Callable<List<ChangedEndpoint>>() {
+					public List<ChangedEndpoint> call() {
+						return compareEndpoints(chunk, oldPaths, newPaths);
+					}
+				}));
+			}
+
+			final List<ChangedEndpoint> endpoints = new ArrayList<ChangedEndpoint>(pathUrls.size());
+			for (Future<List<ChangedEndpoint>> future : futures) {
+				endpoints.addAll(await(future));
+			}
+			return endpoints;
+		} finally {
+			for (Future<List<ChangedEndpoint>> future : futures) {
+				future.cancel(true);
+			}
+		}
+	}
+
+	private ChangedEndpoint compareEndpoint(String pathUrl, Path oldPath, Path newPath) {
+		final ChangedEndpoint changedEndpoint = new ChangedEndpoint();
+		changedEndpoint.setPathUrl(pathUrl);
+
+		final Map<HttpMethod, Operation> oldOperationMap = oldPath.getOperationMap();
+		final Map<HttpMethod, Operation> newOperationMap = newPath.getOperationMap();
+		final MapKeyDiff<HttpMethod, Operation> operationDiff = MapKeyDiff.diff(oldOperationMap, newOperationMap);
+		final Map<HttpMethod, Operation> increasedOperation = operationDiff.getIncreased();
+		final Map<HttpMethod, Operation> missingOperation = operationDiff.getMissing();
+		changedEndpoint.setNewOperations(increasedOperation);
+		changedEndpoint.setMissingOperations(missingOperation);
+
+		final List<HttpMethod> sharedMethods = operationDiff.getSharedKey();
+		final Map<HttpMethod, ChangedOperation> changedOperations = new EnumMap<HttpMethod, ChangedOperation>(HttpMethod.class);
+		ChangedOperation changedOperation = null;
+		boolean truncated = false;
+		for (HttpMethod method : sharedMethods) {
+			if (!isChanged(pathUrl, method)) continue;
+			changedOperation = new ChangedOperation();
+			final Operation oldOperation = oldOperationMap.get(method);
+			final Operation newOperation = newOperationMap.get(method);
+			changedOperation.setSummary(newOperation.getSummary());
+
+			final List<Parameter> oldParameters = oldOperation.getParameters();
+			final List<Parameter> newParameters = newOperation.getParameters();
+			final ParameterDiff parameterDiff = ParameterDiff.buildWithContext(diffContext).diff(oldParameters, newParameters);
+			changedOperation.setAddParameters(parameterDiff.getIncreased());
+			changedOperation.setMissingParameters(parameterDiff.getMissing());
+			changedOperation.setChangedParameter(parameterDiff.getChanged());
+
+			final ResponseDiff responseDiff = ResponseDiff.buildWithContext(diffContext)
+					.diff(oldOperation.getResponses(), newOperation.getResponses());
+			changedOperation.setAddResponses(responseDiff.getIncreased());
+			changedOperation.setMissingResponses(responseDiff.getMissing());
+			changedOperation.setChangedResponses(responseDiff.getChanged());
+			truncated |= parameterDiff.isTruncated() || responseDiff.isTruncated();
+
+			final ChangedResponse changedResponse = responseDiff.getChanged().get(ChangedOperation.RETURN_TYPE_CODE);
+			if (null != changedResponse) {
+				changedOperation.setAddProps(changedResponse.getAddProps());
+				changedOperation.setMissingProps(changedResponse.getMissingProps());
+			} else if (responseDiff.getIncreased().containsKey(ChangedOperation.RETURN_TYPE_CODE)
+					|| responseDiff.getMissing().containsKey(ChangedOperation.RETURN_TYPE_CODE)) {
+				final PropertyDiff propertyDiff = PropertyDiff.buildWithContext(diffContext);
+				propertyDiff.diff(getResponseProperty(oldOperation, true), getResponseProperty(newOperation, false));
+				changedOperation.setAddProps(propertyDiff.getIncreased());
+				changedOperation.setMissingProps(propertyDiff.getMissing());
+				truncated |= propertyDiff.isTruncated();
+			}
+
+			if (changedOperation.isDiff()) {
+				changedOperations.put(method, changedOperation);
+			}
+		}
+		changedEndpoint.setChangedOperations(changedOperations);
+		changedEndpoint.setTruncated(truncated);
+
+		return changedEndpoint;
+	}
+
+	private Property getResponseProperty(Operation operation, boolean isLeft) {
 		final Map<String, Response> responses = operation.getResponses();
-		final Response response = responses.get("200");
+		final Response response = null == responses ? null
+				: diffContext.getResponse(responses.get(ChangedOperation.RETURN_TYPE_CODE), isLeft);
 
 		return response == null ? null : response.getSchema();
 	}
@@ -200,6 +754,10 @@ public class SwaggerDiff {
 		return endpoints;
 	}
 
+	private static int size(Map<?, ?> map) {
+		return null == map ? 0 : map.size();
+	}
+
 	public List<Endpoint> getNewEndpoints() {
 		return newEndpoints;
 	}
@@ -211,4 +769,33 @@ public class SwaggerDiff {
 	public List<ChangedEndpoint> getChangedEndpoints() {
 		return changedEndpoints;
 	}
+
+	/**
+	 * Shared paths whose schema diffs were truncated over the traversal budget,
+	 * whether or not changes were found in them
+	 */
+	public List<String> getTruncatedPaths() {
+		return truncatedPaths;
+	}
+
+	/**
+	 * Listener of the comparison, told about the rendering of it too, or null
+	 */
+	public DiffListener getListener() {
+		return listener;
+	}
+
+	/**
+	 * Hashes of the paths and definitions of the old spec
+	 */
+	public Fingerprint getOldFingerprint() {
+		return oldFingerprint;
+	}
+
+	/**
+	 * Hashes of the paths and definitions of the new spec
+	 */
+	public Fingerprint getNewFingerprint() {
+		return newFingerprint;
+	}
 }
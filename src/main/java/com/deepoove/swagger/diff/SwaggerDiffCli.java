@@ -0,0 +1,341 @@
+package com.deepoove.swagger.diff;
+
+import com.deepoove.swagger.diff.output.HtmlRender;
+import com.deepoove.swagger.diff.output.JsonRender;
+import com.deepoove.swagger.diff.output.MarkdownRender;
+import com.deepoove.swagger.diff.output.OutputRender;
+import com.deepoove.swagger.diff.spec.GuavaSpecCache;
+import com.deepoove.swagger.diff.spec.HttpSpecFetcher;
+import com.deepoove.swagger.diff.spec.SpecDownloads;
+import com.google.common.base.Function;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Command line runner, comparing many pairs of spec files in one JVM:
+ * <pre>
+ * SwaggerDiffCli [options] old new [output [format]]
+ * SwaggerDiffCli [options] --manifest file
+ * SwaggerDiffCli [options] --daemon
+ * </pre>
+ * A manifest has one job per line, {@code old new output [format]}, separated
+ * by tabs when the line has some and by spaces otherwise; blank lines and lines
+ * starting with {@code #} are skipped. The daemon reads jobs in the same form
+ * from stdin until its end, and prints {@code OK output} or
+ * {@code ERROR output message} for each job as it completes.
+ * <p>
+ * The format is {@code html}, {@code markdown} or {@code json}, by default
+ * told by the extension of the output, markdown otherwise. An output of
+ * {@code -}, the default, is stdout.
+ * <p>
+ * Jobs run concurrently on a {@link DiffService}, and parsed specs are shared
+ * between jobs through a {@link GuavaSpecCache}, so a baseline compared with
+ * many candidates is parsed once. Options:
+ * <ul>
+ * <li>{@code --v1} compare v1.x spec files instead of v2.0 ones</li>
+ * <li>{@code --lazy} resolve refs to other files only when needed</li>
+ * <li>{@code --threads n} compare on n threads, one per processor by default</li>
+ * <li>{@code --downloads dir} keep copies of remote spec files in dir, see {@link SpecDownloads}</li>
+ * </ul>
+ * Exits with 0 when every job succeeded, 1 when some failed and 2 on bad usage.
+ */
+public class SwaggerDiffCli {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	private static final String STDOUT = "-";
+
+	/**
+	 * Parsed specs kept between jobs, by the spec cache and by the downloads
+	 */
+	private static final int CACHED_SPECS = 16;
+
+	private final PrintStream out;
+	private final PrintStream err;
+	private final DiffService service;
+	private final CompareOptions options;
+
+	private SwaggerDiffCli(PrintStream out, PrintStream err, DiffService service, CompareOptions options) {
+		this.out = out;
+		this.err = err;
+		this.service = service;
+		this.options = options;
+	}
+
+	public static void main(String[] args) {
+		System.exit(run(args, System.in, System.out, System.err));
+	}
+
+	/**
+	 * Runs the command line with the given streams instead of the standard ones
+	 *
+	 * @return The exit status
+	 */
+	public static int run(String[] args, InputStream in, PrintStream out, PrintStream err) {
+		final CompareOptions options = CompareOptions.v2().specCache(GuavaSpecCache.maximumSize(CACHED_SPECS));
+		int threads = Runtime.getRuntime().availableProcessors();
+		String manifest = null;
+		boolean daemon = false;
+		final List<String> operands = new ArrayList<String>();
+		try {
+			for (int i = 0; i < args.length; i++) {
+				final String arg = args[i];
+				if ("--v1".equals(arg)) {
+					options.version(null);
+				} else if ("--lazy".equals(arg)) {
+					options.lazyResolve(true);
+				} else if ("--threads".equals(arg)) {
+					threads = Integer.parseInt(value(args, ++i));
+					if (threads < 1) throw new IllegalArgumentException("--threads must be positive");
+				} else if ("--downloads".equals(arg)) {
+					options.downloads(new SpecDownloads(new File(value(args, ++i)), new HttpSpecFetcher(), CACHED_SPECS));
+				} else if ("--manifest".equals(arg)) {
+					manifest = value(args, ++i);
+				} else if ("--daemon".equals(arg)) {
+					daemon = true;
+				} else if (arg.startsWith("--")) {
+					throw new IllegalArgumentException("unknown option " + arg);
+				} else {
+					operands.add(arg);
+				}
+			}
+			final boolean batch = null != manifest || daemon;
+			if ((null != manifest && daemon) || (batch && !operands.isEmpty())
+					|| (!batch && (operands.size() < 2 || operands.size() > 4))) {
+				throw new IllegalArgumentException("expected old new [output [format]], --manifest file or --daemon");
+			}
+			if (operands.size() == 4) format(operands.get(3));
+		} catch (IllegalArgumentException e) {
+			err.println(e.getMessage());
+			usage(err);
+			return 2;
+		}
+
+		final SwaggerDiffCli cli = new SwaggerDiffCli(out, err,
+				DiffService.create(4 * threads, threads, 16 * threads), options);
+		try {
+			if (daemon) {
+				return cli.daemon(in);
+			}
+			if (null != manifest) {
+				return cli.manifest(manifest);
+			}
+			return cli.runAll(Collections.singletonList(operands.toArray(new String[0])));
+		} catch (IOException e) {
+			err.println(e.getMessage());
+			return 1;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return 1;
+		} finally {
+			cli.service.shutdown();
+		}
+	}
+
+	private int manifest(String manifest) throws IOException, InterruptedException {
+		final List<String[]> jobs = new ArrayList<String[]>();
+		final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(manifest), UTF_8));
+		try {
+			String line;
+			int number = 0;
+			while (null != (line = reader.readLine())) {
+				number++;
+				final String[] job = job(line);
+				if (null == job) continue;
+				if (job.length < 3 || job.length > 4) {
+					err.println(manifest + ":" + number + ": expected old new output [format]");
+					return 2;
+				}
+				jobs.add(job);
+			}
+		} finally {
+			reader.close();
+		}
+		return runAll(jobs);
+	}
+
+	/**
+	 * Runs the jobs, admitted as the service has room for them, and waits for
+	 * all of them
+	 */
+	private int runAll(List<String[]> jobs) throws InterruptedException {
+		final CountDownLatch done = new CountDownLatch(jobs.size());
+		final AtomicInteger failed = new AtomicInteger();
+		for (final String[] job : jobs) {
+			submit(job, new FutureCallback<String>() {
+				public void onSuccess(String output) {
+					done.countDown();
+				}
+
+				public void onFailure(Throwable t) {
+					failed.incrementAndGet();
+					synchronized (err) {
+						err.println(output(job) + ": " + t);
+					}
+					done.countDown();
+				}
+			});
+		}
+		done.await();
+		return failed.get() == 0 ? 0 : 1;
+	}
+
+	private int daemon(InputStream in) throws IOException, InterruptedException {
+		final BufferedReader reader = new BufferedReader(new InputStreamReader(in, UTF_8));
+		final AtomicInteger pending = new AtomicInteger(1);
+		final CountDownLatch done = new CountDownLatch(1);
+		final AtomicInteger failed = new AtomicInteger();
+		String line;
+		while (null != (line = reader.readLine())) {
+			final String[] job = job(line);
+			if (null == job) continue;
+			if (job.length < 3 || job.length > 4 || STDOUT.equals(job[2])) {
+				status("ERROR " + (job.length < 3 ? "-" : job[2]) + " expected old new output [format], output not -");
+				failed.incrementAndGet();
+				continue;
+			}
+			pending.incrementAndGet();
+			submit(job, new FutureCallback<String>() {
+				public void onSuccess(String output) {
+					status("OK " + output);
+					if (pending.decrementAndGet() == 0) done.countDown();
+				}
+
+				public void onFailure(Throwable t) {
+					failed.incrementAndGet();
+					status("ERROR " + job[2] + " " + String.valueOf(t.getMessage()).replace('\n', ' '));
+					if (pending.decrementAndGet() == 0) done.countDown();
+				}
+			});
+		}
+		if (pending.decrementAndGet() == 0) done.countDown();
+		done.await();
+		return failed.get() == 0 ? 0 : 1;
+	}
+
+	/**
+	 * Compares the specs of a job and writes its report on the compare thread,
+	 * then tells the callback the output written
+	 */
+	private void submit(final String[] job, FutureCallback<String> callback) throws InterruptedException {
+		final String output = output(job);
+		final OutputRender render;
+		try {
+			render = render(job.length > 3 ? format(job[3]) : formatOf(output));
+		} catch (IllegalArgumentException e) {
+			callback.onFailure(e);
+			return;
+		}
+		final ListenableFuture<SwaggerDiff> diff = service.compare(job[0], job[1], options);
+		final ListenableFuture<String> written = Futures.transform(diff, new Function<SwaggerDiff, String>() {
+			public String apply(SwaggerDiff diff) {
+				try {
+					write(render, diff, output);
+				} catch (IOException e) {
+					throw new RuntimeException("cannot write " + output, e);
+				}
+				return output;
+			}
+		}, MoreExecutors.directExecutor());
+		Futures.addCallback(written, callback, MoreExecutors.directExecutor());
+	}
+
+	private void write(OutputRender render, SwaggerDiff diff, String output) throws IOException {
+		if (STDOUT.equals(output)) {
+			final String report = render.render(diff);
+			synchronized (out) {
+				out.print(report);
+				out.flush();
+			}
+			return;
+		}
+		final File file = new File(output);
+		final File parent = file.getAbsoluteFile().getParentFile();
+		if (!parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()) {
+			throw new IOException("cannot create directory " + parent);
+		}
+		final Writer writer = new OutputStreamWriter(new FileOutputStream(file), UTF_8);
+		try {
+			render.render(diff, writer);
+		} finally {
+			writer.close();
+		}
+	}
+
+	private void status(String status) {
+		synchronized (out) {
+			out.println(status);
+			out.flush();
+		}
+	}
+
+	/**
+	 * Fields of a job line, or null for a blank or comment line
+	 */
+	private static String[] job(String line) {
+		final String trimmed = line.trim();
+		if (trimmed.isEmpty() || trimmed.startsWith("#")) return null;
+		return trimmed.split(trimmed.indexOf('\t') >= 0 ? "\\s*\\t\\s*" : "\\s+");
+	}
+
+	private static String output(String[] job) {
+		return job.length > 2 ? job[2] : STDOUT;
+	}
+
+	/**
+	 * Format named by the user
+	 */
+	private static String format(String name) {
+		final String lower = name.toLowerCase();
+		if ("html".equals(lower) || "markdown".equals(lower) || "json".equals(lower)) return lower;
+		if ("md".equals(lower)) return "markdown";
+		throw new IllegalArgumentException("unknown format " + name);
+	}
+
+	/**
+	 * Format told by the extension of an output, markdown by default
+	 */
+	private static String formatOf(String output) {
+		final String lower = output.toLowerCase();
+		if (lower.endsWith(".html") || lower.endsWith(".htm")) return "html";
+		if (lower.endsWith(".json")) return "json";
+		return "markdown";
+	}
+
+	private static OutputRender render(String format) {
+		if ("html".equals(format)) return new HtmlRender();
+		if ("json".equals(format)) return new JsonRender();
+		return new MarkdownRender();
+	}
+
+	private static String value(String[] args, int i) {
+		if (i >= args.length) {
+			throw new IllegalArgumentException(args[i - 1] + " needs a value");
+		}
+		return args[i];
+	}
+
+	private static void usage(PrintStream err) {
+		err.println("usage: SwaggerDiffCli [--v1] [--lazy] [--threads n] [--downloads dir]");
+		err.println("                      (old new [output [format]] | --manifest file | --daemon)");
+	}
+
+}
@@ -0,0 +1,142 @@
+package com.deepoove.swagger.diff.compare;
+
+import io.swagger.models.HttpMethod;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Which definitions and operations of a spec reference which definitions,
+ * kept as reverse edges: from a definition to the definitions and operations
+ * referencing it. Built by {@link Fingerprint#of} from the JSON it hashes.
+ * <p>
+ * Comparing the graphs of two specs tells the operations that may have
+ * changed without walking any definition: the definitions whose own JSON
+ * differs are found in one pass, and the change is propagated to everything
+ * referencing them, directly or not.
+ */
+public class DependencyGraph {
+
+	private final Map<String, String> definitionHashes = new HashMap<String, String>();
+	private final Map<String, String> operationHashes = new HashMap<String, String>();
+	private final Map<String, List<String>> referencingDefinitions = new HashMap<String, List<String>>();
+	private final Map<String, List<String>> referencingOperations = new HashMap<String, List<String>>();
+	private final Set<String> unresolved = new HashSet<String>();
+
+	DependencyGraph() {
+	}
+
+	/**
+	 * Key of an operation, as in the sets returned by {@link #changedOperations}
+	 */
+	public static String operationKey(String pathUrl, HttpMethod method) {
+		return method.name().toLowerCase() + " " + pathUrl;
+	}
+
+	/**
+	 * A definition, with the hash of its own JSON, or null when it could not
+	 * be serialized, and the refs it contains
+	 */
+	void addDefinition(String name, String hash, Set<String> refs) {
+		definitionHashes.put(name, hash);
+		for (String ref : refs) {
+			edge(referencingDefinitions, ref, name);
+		}
+	}
+
+	void addOperation(String key, String hash, Set<String> refs) {
+		operationHashes.put(key, hash);
+		for (String ref : refs) {
+			edge(referencingOperations, ref, key);
+		}
+	}
+
+	/**
+	 * Marks refs pointing outside of the spec, or to definitions that could
+	 * not be hashed, as changed whatever the other spec holds
+	 */
+	void seal() {
+		for (String ref : referencingDefinitions.keySet()) {
+			if (null == definitionHashes.get(ref)) unresolved.add(ref);
+		}
+		for (String ref : referencingOperations.keySet()) {
+			if (null == definitionHashes.get(ref)) unresolved.add(ref);
+		}
+		for (Map.Entry<String, String> entry : definitionHashes.entrySet()) {
+			if (null == entry.getValue()) unresolved.add(entry.getKey());
+		}
+	}
+
+	/**
+	 * Definitions that may differ between the specs: the ones whose JSON
+	 * differs, and the ones referencing those, directly or not
+	 */
+	public static Set<String> changedDefinitions(DependencyGraph left, DependencyGraph right) {
+		final Set<String> changed = new HashSet<String>(left.unresolved);
+		changed.addAll(right.unresolved);
+		for (Map.Entry<String, String> entry : left.definitionHashes.entrySet()) {
+			if (!Fingerprint.same(entry.getValue(), right.definitionHashes.get(entry.getKey()))) {
+				changed.add(entry.getKey());
+			}
+		}
+		for (String name : right.definitionHashes.keySet()) {
+			if (!left.definitionHashes.containsKey(name)) changed.add(name);
+		}
+
+		final Deque<String> pending = new ArrayDeque<String>(changed);
+		while (!pending.isEmpty()) {
+			final String name = pending.pop();
+			for (String referencing : left.get(left.referencingDefinitions, name)) {
+				if (changed.add(referencing)) pending.push(referencing);
+			}
+			for (String referencing : right.get(right.referencingDefinitions, name)) {
+				if (changed.add(referencing)) pending.push(referencing);
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Keys of the operations that may differ between the specs: the ones whose
+	 * JSON differs or present in one spec only, and the ones reaching a changed
+	 * definition
+	 */
+	public static Set<String> changedOperations(DependencyGraph left, DependencyGraph right) {
+		final Set<String> changed = new HashSet<String>();
+		for (Map.Entry<String, String> entry : left.operationHashes.entrySet()) {
+			if (!Fingerprint.same(entry.getValue(), right.operationHashes.get(entry.getKey()))) {
+				changed.add(entry.getKey());
+			}
+		}
+		for (String key : right.operationHashes.keySet()) {
+			if (!left.operationHashes.containsKey(key)) changed.add(key);
+		}
+		for (String name : changedDefinitions(left, right)) {
+			changed.addAll(left.get(left.referencingOperations, name));
+			changed.addAll(right.get(right.referencingOperations, name));
+		}
+		return changed;
+	}
+
+	private List<String> get(Map<String, List<String>> edges, String name) {
+		final List<String> referencing = edges.get(name);
+		return null == referencing ? Collections.<String>emptyList() : referencing;
+	}
+
+	private static void edge(Map<String, List<String>> edges, String ref, String referencing) {
+		List<String> list = edges.get(ref);
+		if (null == list) {
+			list = new ArrayList<String>(2);
+			edges.put(ref, list);
+		}
+		list.add(referencing);
+	}
+
+}
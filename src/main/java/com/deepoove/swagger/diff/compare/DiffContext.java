@@ -0,0 +1,161 @@
+package com.deepoove.swagger.diff.compare;
+
+import io.swagger.models.Model;
+import io.swagger.models.RefResponse;
+import io.swagger.models.Response;
+import io.swagger.models.parameters.Parameter;
+import io.swagger.models.parameters.RefParameter;
+import io.swagger.models.refs.RefFormat;
+
+import java.util.Map;
+
+/**
+ * State shared by every operation of one comparison: the definitions of both
+ * specs, the cache of compared definitions and the statistics of the
+ * traversals running on each thread.
+ */
+public class DiffContext {
+
+	private final Map<String, Model> oldDefinitions;
+	private final Map<String, Model> newDefinitions;
+	private final Fingerprint oldFingerprint;
+	private final Fingerprint newFingerprint;
+	private final RefResolver oldResolver;
+	private final RefResolver newResolver;
+	private final ModelDiffCache modelDiffCache;
+	private final PropertyTables propertyTables;
+	private final long created = System.nanoTime();
+	private TraversalBudget budget = TraversalBudget.unlimited();
+
+	private final ThreadLocal<TraversalStats> traversalStats = new ThreadLocal<TraversalStats>() {
+		@Override
+		protected TraversalStats initialValue() {
+			return new TraversalStats();
+		}
+	};
+
+	public DiffContext(Map<String, Model> oldDefinitions, Map<String, Model> newDefinitions) {
+		this(oldDefinitions, newDefinitions, null, null);
+	}
+
+	/**
+	 * With the fingerprints of both specs, definitions having the same hash are
+	 * not compared property by property.
+	 */
+	public DiffContext(Map<String, Model> oldDefinitions, Map<String, Model> newDefinitions,
+					   Fingerprint oldFingerprint, Fingerprint newFingerprint) {
+		this(oldDefinitions, newDefinitions, oldFingerprint, newFingerprint, null, null);
+	}
+
+	/**
+	 * With resolvers, refs to definitions, parameters and responses outside of
+	 * the specs are resolved when they are first dereferenced rather than when
+	 * the specs are read.
+	 */
+	public DiffContext(Map<String, Model> oldDefinitions, Map<String, Model> newDefinitions,
+					   Fingerprint oldFingerprint, Fingerprint newFingerprint,
+					   RefResolver oldResolver, RefResolver newResolver) {
+		this.oldDefinitions = oldDefinitions;
+		this.newDefinitions = newDefinitions;
+		this.oldFingerprint = oldFingerprint;
+		this.newFingerprint = newFingerprint;
+		this.oldResolver = oldResolver;
+		this.newResolver = newResolver;
+		this.modelDiffCache = new ModelDiffCache();
+		this.propertyTables = new PropertyTables(this);
+	}
+
+	/**
+	 * Limits the definition traversals of the comparison, their results are
+	 * truncated past the limits
+	 */
+	public DiffContext budget(TraversalBudget budget) {
+		this.budget = null == budget ? TraversalBudget.unlimited() : budget;
+		return this;
+	}
+
+	public TraversalBudget getBudget() {
+		return budget;
+	}
+
+	boolean isOverTime() {
+		return budget.getTimeLimitNanos() != Long.MAX_VALUE
+				&& System.nanoTime() - created > budget.getTimeLimitNanos();
+	}
+
+	public Map<String, Model> getOldDefinitions() {
+		return oldDefinitions;
+	}
+
+	public Map<String, Model> getNewDefinitions() {
+		return newDefinitions;
+	}
+
+	Model getDefinition(String ref, boolean isLeft) {
+		Map<String, Model> definitions = isLeft ? oldDefinitions : newDefinitions;
+		Model model = null == definitions ? null : definitions.get(ref);
+		if (null == model && isExternalRef(ref)) {
+			RefResolver resolver = isLeft ? oldResolver : newResolver;
+			model = null == resolver ? null : resolver.resolve(ref);
+		}
+		return model;
+	}
+
+	/**
+	 * The parameter a ref to another file points to, or the parameter itself
+	 * when it is not such a ref or it cannot be resolved
+	 */
+	public Parameter getParameter(Parameter parameter, boolean isLeft) {
+		RefResolver resolver = isLeft ? oldResolver : newResolver;
+		if (null == resolver || !(parameter instanceof RefParameter)) return parameter;
+		RefParameter ref = (RefParameter) parameter;
+		if (ref.getRefFormat() == RefFormat.INTERNAL) return parameter;
+		Parameter resolved = resolver.resolveParameter(ref.get$ref());
+		return null == resolved ? parameter : resolved;
+	}
+
+	/**
+	 * The response a ref to another file points to, or the response itself
+	 * when it is not such a ref or it cannot be resolved
+	 */
+	public Response getResponse(Response response, boolean isLeft) {
+		RefResolver resolver = isLeft ? oldResolver : newResolver;
+		if (null == resolver || !(response instanceof RefResponse)) return response;
+		RefResponse ref = (RefResponse) response;
+		if (ref.getRefFormat() == RefFormat.INTERNAL) return response;
+		Response resolved = resolver.resolveResponse(ref.get$ref());
+		return null == resolved ? response : resolved;
+	}
+
+	/**
+	 * Whether a simple ref points outside of the spec, to another file or URL
+	 */
+	public static boolean isExternalRef(String ref) {
+		if (null == ref) return false;
+		String lower = ref.toLowerCase();
+		return ref.indexOf('#') >= 0 || lower.startsWith("./") || lower.startsWith("../")
+				|| lower.startsWith("http:") || lower.startsWith("https:") || lower.startsWith("file:")
+				|| lower.endsWith(".json") || lower.endsWith(".yaml") || lower.endsWith(".yml");
+	}
+
+	boolean isUnchanged(String leftRef, String rightRef) {
+		return null != oldFingerprint && null != newFingerprint
+				&& Fingerprint.same(oldFingerprint.getDefinitionHash(leftRef), newFingerprint.getDefinitionHash(rightRef));
+	}
+
+	ModelDiffCache getModelDiffCache() {
+		return modelDiffCache;
+	}
+
+	PropertyTables getPropertyTables() {
+		return propertyTables;
+	}
+
+	/**
+	 * What the traversals running on the current thread did since its last reset
+	 */
+	public TraversalStats getTraversalStats() {
+		return traversalStats.get();
+	}
+
+}
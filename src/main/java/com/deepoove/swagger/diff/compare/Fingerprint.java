@@ -0,0 +1,353 @@
+package com.deepoove.swagger.diff.compare;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.common.base.Charsets;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import io.swagger.models.HttpMethod;
+import io.swagger.models.Model;
+import io.swagger.models.Path;
+import io.swagger.models.Swagger;
+import io.swagger.util.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Structural hashes of the paths and definitions of a spec.
+ * <p>
+ * A hash covers the canonical JSON of the path or definition and of every
+ * definition it references, directly or not, so two paths or definitions
+ * having the same hash compare without any difference. Paths and definitions
+ * reaching a ref to another file have no hash, they are always compared.
+ * Hashes are hex strings and stable between runs, callers may keep them to
+ * compare with later.
+ */
+public class Fingerprint {
+
+	private static Logger logger = LoggerFactory.getLogger(Fingerprint.class);
+
+	private static final ObjectMapper MAPPER = Json.mapper().copy()
+			.configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+	private static final HashFunction HASH = Hashing.murmur3_128();
+	private static final String DEFINITION_REF = "#/definitions/";
+
+	private final Map<String, String> paths;
+	private final Map<String, String> definitions;
+	private final DependencyGraph graph;
+
+	public Fingerprint(Map<String, String> paths, Map<String, String> definitions) {
+		this(paths, definitions, null);
+	}
+
+	private Fingerprint(Map<String, String> paths, Map<String, String> definitions, DependencyGraph graph) {
+		this.paths = Collections.unmodifiableMap(paths);
+		this.definitions = Collections.unmodifiableMap(definitions);
+		this.graph = graph;
+	}
+
+	public static Fingerprint of(Swagger swagger) {
+		final DependencyGraph graph = new DependencyGraph();
+		final Map<String, Shallow> shallowDefinitions = new HashMap<String, Shallow>();
+		final Map<String, String> ownHashes = new HashMap<String, String>();
+		if (null != swagger.getDefinitions()) {
+			for (Map.Entry<String, Model> entry : swagger.getDefinitions().entrySet()) {
+				final Shallow shallow = Shallow.of(entry.getValue());
+				final String ownHash = null == shallow ? null : HASH.hashBytes(shallow.json).toString();
+				if (null != shallow) {
+					shallowDefinitions.put(entry.getKey(), shallow);
+					ownHashes.put(entry.getKey(), ownHash);
+				}
+				graph.addDefinition(entry.getKey(), ownHash,
+						null == shallow ? Collections.<String>emptySet() : shallow.refs);
+			}
+		}
+
+		final Map<String, String> deepHashes = deepHashes(shallowDefinitions, ownHashes, swagger.getDefinitions());
+		final Map<String, String> definitions = new LinkedHashMap<String, String>();
+		for (String name : shallowDefinitions.keySet()) {
+			final String hash = deepHashes.get(name);
+			if (null != hash) definitions.put(name, hash);
+		}
+
+		final Map<String, String> paths = new LinkedHashMap<String, String>();
+		if (null != swagger.getPaths()) {
+			for (Map.Entry<String, Path> entry : swagger.getPaths().entrySet()) {
+				final JsonNode node = toTree(entry.getValue());
+				final Shallow shallow = null == node ? null : Shallow.of(node);
+				final String hash = null == shallow ? null : deepHash(shallow, shallowDefinitions, deepHashes, swagger.getDefinitions());
+				if (null != hash) paths.put(entry.getKey(), hash);
+				addOperations(graph, entry.getKey(), entry.getValue(), null == shallow ? null : node);
+			}
+		}
+		graph.seal();
+
+		return new Fingerprint(paths, definitions, graph);
+	}
+
+	/**
+	 * Adds the operations of a path to the graph, with the hash of their own
+	 * JSON taken from the tree of the path, or no hash when it has no tree
+	 */
+	private static void addOperations(DependencyGraph graph, String pathUrl, Path path, JsonNode node) {
+		for (HttpMethod method : path.getOperationMap().keySet()) {
+			final String key = DependencyGraph.operationKey(pathUrl, method);
+			final JsonNode operation = null == node ? null : node.get(method.name().toLowerCase());
+			final Shallow shallow = null == operation ? null : Shallow.of(operation);
+			if (null == shallow) {
+				graph.addOperation(key, null, Collections.<String>emptySet());
+			} else {
+				graph.addOperation(key, HASH.hashBytes(shallow.json).toString(), shallow.refs);
+			}
+		}
+	}
+
+	private static JsonNode toTree(Object value) {
+		try {
+			return MAPPER.valueToTree(value);
+		} catch (Exception e) {
+			logger.debug("cannot hash {}, it will be compared in full", value, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Hashes the JSON of a path with the name and deep hash of every definition
+	 * it refers to. Returns null when one of those has no hash or lies outside
+	 * of the spec.
+	 */
+	private static String deepHash(Shallow root, Map<String, Shallow> shallowDefinitions,
+								   Map<String, String> deepHashes, Map<String, Model> models) {
+		final Hasher hasher = HASH.newHasher().putBytes(root.json);
+		for (String ref : root.refs) {
+			final String hash;
+			if (shallowDefinitions.containsKey(ref)) {
+				hash = deepHashes.get(ref);
+				if (null == hash) return null;
+			} else if (null != models && models.containsKey(ref) || DiffContext.isExternalRef(ref)) {
+				return null;
+			} else {
+				hash = "";
+			}
+			putRef(hasher, ref, hash);
+		}
+		return hasher.hash().toString();
+	}
+
+	/**
+	 * Deep hashes of the definitions, covering the JSON of each definition and
+	 * of every definition it reaches. The definitions of a cycle reach the same
+	 * ones, so the refs are split into strongly connected components, each one
+	 * hashed once from the own hashes of its members and the deep hashes of the
+	 * components it refers to, which are hashed before it. Definitions reaching
+	 * one that has no hash or lies outside of the spec have no deep hash.
+	 */
+	private static Map<String, String> deepHashes(Map<String, Shallow> shallowDefinitions,
+												  Map<String, String> ownHashes, Map<String, Model> models) {
+		final Map<String, String> deepHashes = new HashMap<String, String>();
+		for (List<String> component : components(shallowDefinitions)) {
+			final Set<String> members = new TreeSet<String>(component);
+			final Map<String, String> refs = new TreeMap<String, String>();
+			boolean hashed = true;
+			for (String member : members) {
+				for (String ref : shallowDefinitions.get(member).refs) {
+					if (members.contains(ref)) continue;
+					if (shallowDefinitions.containsKey(ref)) {
+						final String hash = deepHashes.get(ref);
+						if (null == hash) hashed = false;
+						refs.put(ref, hash);
+					} else if (null != models && models.containsKey(ref) || DiffContext.isExternalRef(ref)) {
+						hashed = false;
+					} else {
+						refs.put(ref, "");
+					}
+				}
+			}
+			if (!hashed) continue;
+
+			final Hasher hasher = HASH.newHasher();
+			for (String member : members) {
+				putRef(hasher, member, ownHashes.get(member));
+			}
+			hasher.putByte((byte) 1);
+			for (Map.Entry<String, String> ref : refs.entrySet()) {
+				putRef(hasher, ref.getKey(), ref.getValue());
+			}
+			final String componentHash = hasher.hash().toString();
+			for (String member : members) {
+				deepHashes.put(member, HASH.newHasher()
+						.putString(ownHashes.get(member), Charsets.UTF_8).putByte((byte) 0)
+						.putString(componentHash, Charsets.UTF_8).hash().toString());
+			}
+		}
+		return deepHashes;
+	}
+
+	private static void putRef(Hasher hasher, String name, String hash) {
+		hasher.putByte((byte) 0).putString(name, Charsets.UTF_8).putByte((byte) 0)
+				.putString(hash, Charsets.UTF_8).putByte((byte) 0);
+	}
+
+	/**
+	 * Strongly connected components of the refs between definitions, each one
+	 * after the components it refers to (Tarjan, with an explicit stack)
+	 */
+	private static List<List<String>> components(Map<String, Shallow> shallowDefinitions) {
+		final List<List<String>> components = new ArrayList<List<String>>();
+		final Map<String, Integer> index = new HashMap<String, Integer>();
+		final Map<String, Integer> lowLink = new HashMap<String, Integer>();
+		final Set<String> onStack = new HashSet<String>();
+		final Deque<String> stack = new ArrayDeque<String>();
+		final Deque<String> callers = new ArrayDeque<String>();
+		final Deque<Iterator<String>> edges = new ArrayDeque<Iterator<String>>();
+
+		for (String root : new TreeSet<String>(shallowDefinitions.keySet())) {
+			if (index.containsKey(root)) continue;
+			callers.push(root);
+			edges.push(shallowDefinitions.get(root).refs.iterator());
+			index.put(root, index.size());
+			lowLink.put(root, index.get(root));
+			stack.push(root);
+			onStack.add(root);
+
+			while (!callers.isEmpty()) {
+				final String node = callers.peek();
+				final Iterator<String> refs = edges.peek();
+				if (refs.hasNext()) {
+					final String ref = refs.next();
+					if (!shallowDefinitions.containsKey(ref)) continue;
+					if (!index.containsKey(ref)) {
+						index.put(ref, index.size());
+						lowLink.put(ref, index.get(ref));
+						stack.push(ref);
+						onStack.add(ref);
+						callers.push(ref);
+						edges.push(shallowDefinitions.get(ref).refs.iterator());
+					} else if (onStack.contains(ref)) {
+						lowLink.put(node, Math.min(lowLink.get(node), index.get(ref)));
+					}
+					continue;
+				}
+
+				callers.pop();
+				edges.pop();
+				if (!callers.isEmpty()) {
+					final String caller = callers.peek();
+					lowLink.put(caller, Math.min(lowLink.get(caller), lowLink.get(node)));
+				}
+				if (lowLink.get(node).equals(index.get(node))) {
+					final List<String> component = new ArrayList<String>();
+					String member;
+					do {
+						member = stack.pop();
+						onStack.remove(member);
+						component.add(member);
+					} while (!member.equals(node));
+					components.add(component);
+				}
+			}
+		}
+		return components;
+	}
+
+	/**
+	 * Hash of the path, or null when it has none
+	 */
+	public String getPathHash(String pathUrl) {
+		return paths.get(pathUrl);
+	}
+
+	/**
+	 * Hash of the definition, or null when it has none
+	 */
+	public String getDefinitionHash(String name) {
+		return definitions.get(name);
+	}
+
+	public Map<String, String> getPaths() {
+		return paths;
+	}
+
+	public Map<String, String> getDefinitions() {
+		return definitions;
+	}
+
+	/**
+	 * References between the definitions and operations of the spec, or null
+	 * when the fingerprint was not computed from a spec
+	 */
+	public DependencyGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Whether two hashes are known and equal
+	 */
+	public static boolean same(String leftHash, String rightHash) {
+		return null != leftHash && leftHash.equals(rightHash);
+	}
+
+	/**
+	 * Canonical JSON of one object and the definitions it refers to directly
+	 */
+	private static final class Shallow {
+		final byte[] json;
+		final Set<String> refs = new TreeSet<String>();
+
+		private Shallow(byte[] json) {
+			this.json = json;
+		}
+
+		static Shallow of(Object value) {
+			final JsonNode node = toTree(value);
+			return null == node ? null : of(node);
+		}
+
+		static Shallow of(JsonNode node) {
+			try {
+				final Shallow shallow = new Shallow(MAPPER.writeValueAsBytes(node));
+				collectRefs(node, shallow.refs);
+				return shallow;
+			} catch (Exception e) {
+				logger.debug("cannot hash {}, it will be compared in full", node, e);
+				return null;
+			}
+		}
+
+		private static void collectRefs(JsonNode node, Set<String> refs) {
+			if (node.isObject()) {
+				final Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+				while (fields.hasNext()) {
+					final Map.Entry<String, JsonNode> field = fields.next();
+					if ("$ref".equals(field.getKey()) && field.getValue().isTextual()) {
+						final String ref = field.getValue().asText();
+						refs.add(ref.startsWith(DEFINITION_REF) ? ref.substring(DEFINITION_REF.length()) : ref);
+					} else {
+						collectRefs(field.getValue(), refs);
+					}
+				}
+			} else if (node.isArray()) {
+				for (JsonNode element : node) {
+					collectRefs(element, refs);
+				}
+			}
+		}
+	}
+
+}
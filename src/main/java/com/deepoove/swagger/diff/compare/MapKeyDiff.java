@@ -1,24 +1,35 @@
 package com.deepoove.swagger.diff.compare;
 
+import com.google.common.base.Predicates;
+import com.google.common.collect.Maps;
+
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 
+/**
+ * Diffs the keys of two maps without copying them: the increased and missing
+ * maps are read-only views of the given maps, filtered on the keys of the
+ * other one, and the shared keys are listed on first use. The views follow
+ * later changes of the given maps.
+ */
 public class MapKeyDiff<K, V> {
 
+	private Map<K, V> mapLeft;
+	private Map<K, V> mapRight;
 	private Map<K, V> increased;
 	private Map<K, V> missing;
 	private List<K> sharedKey;
 
 	private MapKeyDiff() {
-		this.sharedKey = new ArrayList<K>();
 	}
 
 	public static <K, V> MapKeyDiff<K, V> diff(Map<K, V> mapLeft,
 											   Map<K, V> mapRight) {
 		MapKeyDiff<K, V> instance = new MapKeyDiff<K, V>();
+		instance.mapLeft = mapLeft;
+		instance.mapRight = mapRight;
 		if (null == mapLeft && null == mapRight) return instance;
 		if (null == mapLeft) {
 			instance.increased = mapRight;
@@ -28,20 +39,10 @@ public class MapKeyDiff<K, V> {
 			instance.missing = mapLeft;
 			return instance;
 		}
-		instance.increased = new LinkedHashMap<K, V>(mapRight);
-		instance.missing = new LinkedHashMap<K, V>();
-		for (Entry<K, V> entry : mapLeft.entrySet()) {
-			K leftKey = entry.getKey();
-			V leftValue = entry.getValue();
-			if (mapRight.containsKey(leftKey)) {
-				instance.increased.remove(leftKey);
-				instance.sharedKey.add(leftKey);
-
-			} else {
-				instance.missing.put(leftKey, leftValue);
-			}
-
-		}
+		instance.increased = Collections.unmodifiableMap(
+				Maps.filterKeys(mapRight, Predicates.not(Predicates.in(mapLeft.keySet()))));
+		instance.missing = Collections.unmodifiableMap(
+				Maps.filterKeys(mapLeft, Predicates.not(Predicates.in(mapRight.keySet()))));
 		return instance;
 	}
 
@@ -53,7 +54,20 @@ public class MapKeyDiff<K, V> {
 		return missing;
 	}
 
+	/**
+	 * Keys of both maps, in the order of the left one
+	 */
 	public List<K> getSharedKey() {
+		if (null == sharedKey) {
+			if (null == mapLeft || null == mapRight) {
+				sharedKey = new ArrayList<K>(0);
+			} else {
+				sharedKey = new ArrayList<K>(Math.min(mapLeft.size(), mapRight.size()));
+				for (K key : mapLeft.keySet()) {
+					if (mapRight.containsKey(key)) sharedKey.add(key);
+				}
+			}
+		}
 		return sharedKey;
 	}
 
@@ -1,23 +1,40 @@
 package com.deepoove.swagger.diff.compare;
 
+import com.deepoove.swagger.diff.compare.ModelDiffCache.Entry;
+import com.deepoove.swagger.diff.model.ElPath;
 import com.deepoove.swagger.diff.model.ElProperty;
+import io.swagger.models.ArrayModel;
 import io.swagger.models.Model;
+import io.swagger.models.RefModel;
+import io.swagger.models.properties.ObjectProperty;
 import io.swagger.models.properties.Property;
 import io.swagger.models.properties.RefProperty;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 
 public class ModelDiff {
 
 	private List<ElProperty> increased;
 	private List<ElProperty> missing;
 
-	Map<String, Model> oldDedinitions;
-	Map<String, Model> newDedinitions;
+	private DiffContext context;
+	private ModelDiffCache cache;
+	private TraversalStats stats;
+
+	/**
+	 * Definitions expanded by the running traversal whose component of
+	 * mutually referencing definitions is not finished yet, by the order they
+	 * were expanded in
+	 */
+	private final Map<String, Integer> open = new HashMap<String, Integer>();
+	private final List<String> openOrder = new ArrayList<String>();
+	private int expanded;
+	private boolean truncated;
 
 	private ModelDiff() {
 		increased = new ArrayList<ElProperty>();
@@ -26,9 +43,14 @@ public class ModelDiff {
 
 	public static ModelDiff buildWithDefinition(Map<String, Model> left,
 												Map<String, Model> right) {
+		return buildWithContext(new DiffContext(left, right));
+	}
+
+	public static ModelDiff buildWithContext(DiffContext context) {
 		ModelDiff diff = new ModelDiff();
-		diff.oldDedinitions = left;
-		diff.newDedinitions = right;
+		diff.context = context;
+		diff.cache = context.getModelDiffCache();
+		diff.stats = context.getTraversalStats();
 		return diff;
 	}
 
@@ -36,61 +58,259 @@ public class ModelDiff {
 		return this.diff(leftModel, rightModel, null);
 	}
 
+	/**
+	 * Diffs two schemas, whether refs, array models, allOf compositions or
+	 * inline models. A null model stands for no model.
+	 */
 	public ModelDiff diff(Model leftModel, Model rightModel, String parentEl) {
-		if (null == leftModel && null == rightModel) return this;
-		Map<String, Property> leftProperties = null == leftModel ? null : leftModel.getProperties();
-		Map<String, Property> rightProperties = null == rightModel ? null : rightModel.getProperties();
+		return diff(target(leftModel, true), target(rightModel, false), parentEl);
+	}
+
+	/**
+	 * Diffs the schemas of two properties, following refs, array items and
+	 * inline objects. A null property stands for no property.
+	 */
+	public ModelDiff diff(Property leftProperty, Property rightProperty, String parentEl) {
+		return diff(target(leftProperty), target(rightProperty), parentEl);
+	}
+
+	/**
+	 * Diffs the definitions the given refs point to, reusing the result of
+	 * earlier comparisons of the same pair. A null ref stands for no model.
+	 */
+	public ModelDiff diffRef(String leftRef, String rightRef, String parentEl) {
+		return diff(Target.ref(leftRef), Target.ref(rightRef), parentEl);
+	}
+
+	private ModelDiff diff(Target left, Target right, String parentEl) {
+		if (null == left && null == right) return this;
+		Frame root = new Frame(null, false, 0);
+		root.steps.add(Step.schemas(left, right, null));
+		expanded = 0;
+		append(traverse(root), parentEl);
+		return this;
+	}
+
+	/**
+	 * Expands the definitions below a root step with an explicit stack rather
+	 * than recursively, so deep definitions cannot overflow the thread stack.
+	 * Each frame is a definition being expanded, its steps are applied in the
+	 * order the recursive traversal used: increased, missing, then shared refs.
+	 * <p>
+	 * Ref cycles are cut as in Tarjan's algorithm: a definition is expanded
+	 * once per component of mutually referencing definitions, later refs to it
+	 * from the same component are cut, and the entry of the first definition
+	 * expanded in a component is cached once the component is finished.
+	 */
+	private Entry traverse(Frame root) {
+		Deque<Frame> stack = new ArrayDeque<Frame>();
+		stack.push(root);
+		try {
+			while (true) {
+				Frame frame = stack.peek();
+				if (frame.next < frame.steps.size()) {
+					Step step = frame.steps.get(frame.next++);
+					if (null != step.property) {
+						ElProperty pWithPath = new ElProperty();
+						stats.elProperties++;
+						pWithPath.setProperty(step.property);
+						pWithPath.setPath(step.path);
+						(step.isLeft ? frame.entry.missing : frame.entry.increased).add(pWithPath);
+						continue;
+					}
+					Entry child = expand(step, stack);
+					if (null != child) apply(step, child, frame.entry);
+					continue;
+				}
+				stack.pop();
+				Entry done = finish(frame);
+				Frame parent = stack.peek();
+				if (null == parent) return done;
+				apply(parent.steps.get(parent.next - 1), done, parent.entry);
+			}
+		} finally {
+			while (!stack.isEmpty()) {
+				Frame frame = stack.pop();
+				if (frame.counted) stats.exit();
+			}
+			open.clear();
+			openOrder.clear();
+		}
+	}
+
+	/**
+	 * Gives the entry of a schema step when it is known without expanding its
+	 * schemas, otherwise pushes a frame expanding them and gives null. Only
+	 * steps between definitions are cached and checked for cycles, inline
+	 * schemas are expanded each time they are reached.
+	 */
+	private Entry expand(Step step, Deque<Frame> stack) {
+		Target left = step.left;
+		Target right = step.right;
+		String key = null;
+		if (null == left) {
+			if (null != right.ref) key = ModelDiffCache.flattenKey(right.ref, false);
+		} else if (null == right) {
+			if (null != left.ref) key = ModelDiffCache.flattenKey(left.ref, true);
+		} else if (null != left.ref && null != right.ref) {
+			key = ModelDiffCache.pairKey(left.ref, right.ref);
+		}
+		stats.nodes++;
+		if (null != key) {
+			Entry entry = cache.get(key);
+			if (null != entry) return entry;
+			if (null != left && null != right && null != left.ref && null != right.ref
+					&& context.isUnchanged(left.ref, right.ref)) {
+				return cache.put(key, new Entry());
+			}
+			Integer index = open.get(key);
+			if (null != index) return Entry.cut(index);
+		}
+		if (overBudget()) return Entry.truncated();
+
+		Frame frame = new Frame(key, true, openOrder.size());
+		if (null == right) {
+			addProperties(frame, properties(left, true), true);
+		} else if (null == left) {
+			addProperties(frame, properties(right, false), false);
+		} else {
+			addProperties(frame, properties(left, true), properties(right, false));
+		}
+		if (null != key) {
+			open.put(key, frame.index);
+			openOrder.add(key);
+		}
+		stats.enter();
+		expanded++;
+		stack.push(frame);
+		return null;
+	}
+
+	private boolean overBudget() {
+		TraversalBudget budget = context.getBudget();
+		return stats.depth >= budget.getMaxDepth()
+				|| expanded >= budget.getMaxNodes()
+				|| context.isOverTime();
+	}
+
+	/**
+	 * Ends the expansion of a frame. A definition whose entry was only cut at
+	 * itself or at definitions expanded after it finishes its component: the
+	 * definitions of the component are closed, and its entry no longer depends
+	 * on the path it was reached from.
+	 */
+	private Entry finish(Frame frame) {
+		if (frame.counted) stats.exit();
+		if (null == frame.key || frame.entry.low < frame.index) return frame.entry;
+		while (openOrder.size() > frame.index) {
+			open.remove(openOrder.remove(openOrder.size() - 1));
+		}
+		frame.entry.low = Entry.UNCUT;
+		return cache.put(frame.key, frame.entry);
+	}
+
+	private void apply(Step step, Entry child, Entry entry) {
+		if (null == step.left) {
+			rebase(child.increased, step.path, entry.increased);
+		} else if (null == step.right) {
+			rebase(child.missing, step.path, entry.missing);
+		} else {
+			rebase(child.increased, step.path, entry.increased);
+			rebase(child.missing, step.path, entry.missing);
+		}
+		entry.low = Math.min(entry.low, child.low);
+		entry.truncated |= child.truncated;
+	}
+
+	private void addProperties(Frame frame, Map<String, Property> leftProperties,
+									  Map<String, Property> rightProperties) {
 		MapKeyDiff<String, Property> propertyDiff = MapKeyDiff.diff(leftProperties, rightProperties);
-		Map<String, Property> increasedProp = propertyDiff.getIncreased();
-		Map<String, Property> missingProp = propertyDiff.getMissing();
-
-		increased.addAll(convert2ElPropertys(increasedProp, parentEl, false));
-		missing.addAll(convert2ElPropertys(missingProp, parentEl, true));
-
-		List<String> sharedKey = propertyDiff.getSharedKey();
-		for (String key : sharedKey) {
-			Property left = leftProperties.get(key);
-			Property right = rightProperties.get(key);
-			if (left instanceof RefProperty
-					&& right instanceof RefProperty) {
-				String leftRef = ((RefProperty) left).getSimpleRef();
-				String rightRef = ((RefProperty) right).getSimpleRef();
-				diff(oldDedinitions.get(leftRef),
-						newDedinitions.get(rightRef),
-						null == parentEl ? key : (parentEl + "." + key));
+		addProperties(frame, propertyDiff.getIncreased(), false);
+		addProperties(frame, propertyDiff.getMissing(), true);
+
+		for (String key : propertyDiff.getSharedKey()) {
+			Target left = target(leftProperties.get(key));
+			Target right = target(rightProperties.get(key));
+			if (null != left && null != right) {
+				frame.steps.add(Step.schemas(left, right, key));
 			}
 		}
-		return this;
 	}
 
-	private Collection<? extends ElProperty> convert2ElPropertys(
-			Map<String, Property> propMap, String parentEl, boolean isLeft) {
-		List<ElProperty> result = new ArrayList<ElProperty>();
-		if (null == propMap) return result;
-		for (Entry<String, Property> entry : propMap.entrySet()) {
-			String propName = entry.getKey();
-			Property property = entry.getValue();
-			if (property instanceof RefProperty) {
-				String ref = ((RefProperty) property).getSimpleRef();
-				Model model = isLeft ? oldDedinitions.get(ref)
-						: newDedinitions.get(ref);
-				if (model != null) {
-					Map<String, Property> properties = model.getProperties();
-					result.addAll(
-							convert2ElPropertys(properties,
-									null == parentEl ? propName
-											: (parentEl + "." + propName),
-									isLeft));
-				}
+	private void addProperties(Frame frame, Map<String, Property> propMap, boolean isLeft) {
+		if (null == propMap) return;
+		for (Map.Entry<String, Property> prop : propMap.entrySet()) {
+			String propName = prop.getKey();
+			Property property = prop.getValue();
+			Target target = target(property);
+			if (null != target) {
+				frame.steps.add(isLeft ? Step.schemas(target, null, propName) : Step.schemas(null, target, propName));
 			} else {
-				ElProperty pWithPath = new ElProperty();
-				pWithPath.setProperty(property);
-				pWithPath.setEl(null == parentEl ? propName
-						: (parentEl + "." + propName));
-				result.add(pWithPath);
+				frame.steps.add(Step.leaf(property, propName, isLeft));
 			}
 		}
-		return result;
+	}
+
+	private void append(Entry entry, String parentEl) {
+		truncated |= entry.truncated;
+		ElPath parent = ElPath.of(parentEl);
+		rebase(entry.increased, parent, increased);
+		rebase(entry.missing, parent, missing);
+	}
+
+	/**
+	 * Copies properties under a parent el, sharing their els as suffixes
+	 * rather than concatenating strings
+	 */
+	private void rebase(List<ElProperty> from, ElPath parent,
+						List<ElProperty> to) {
+		stats.elProperties += from.size();
+		for (ElProperty prop : from) {
+			ElProperty pWithPath = new ElProperty();
+			pWithPath.setProperty(prop.getProperty());
+			pWithPath.setPath(ElPath.join(parent, prop.getPath()));
+			to.add(pWithPath);
+		}
+	}
+
+	/**
+	 * The schema of a property to expand, or null for a leaf property
+	 */
+	private static Target target(Property property) {
+		property = PropertyTables.items(property);
+		if (property instanceof RefProperty) {
+			return Target.ref(((RefProperty) property).getSimpleRef());
+		}
+		if (property instanceof ObjectProperty) {
+			Map<String, Property> properties = ((ObjectProperty) property).getProperties();
+			if (null != properties && !properties.isEmpty()) return new Target(null, properties);
+		}
+		return null;
+	}
+
+	private Target target(Model model, boolean isLeft) {
+		if (null == model) return null;
+		if (model instanceof RefModel) return Target.ref(((RefModel) model).getSimpleRef());
+		if (model instanceof ArrayModel) {
+			Target items = target(((ArrayModel) model).getItems());
+			if (null != items) return items;
+		}
+		return new Target(null, context.getPropertyTables().flatten(model, isLeft));
+	}
+
+	/**
+	 * Flattened properties of a schema, null when its definition is not found
+	 */
+	private Map<String, Property> properties(Target target, boolean isLeft) {
+		return null == target.ref ? target.properties : context.getPropertyTables().get(target.ref, isLeft);
+	}
+
+	/**
+	 * Whether the traversal budget of the context was exceeded, leaving out the
+	 * differences below the definitions that were not expanded
+	 */
+	public boolean isTruncated() {
+		return truncated;
 	}
 
 	public List<ElProperty> getIncreased() {
@@ -109,4 +329,73 @@ public class ModelDiff {
 		this.missing = missing;
 	}
 
+	/**
+	 * A definition, or pair of definitions, being expanded
+	 */
+	private static final class Frame {
+		final String key;
+		final boolean counted;
+		final Entry entry = new Entry();
+		final List<Step> steps = new ArrayList<Step>();
+		int next;
+
+		/**
+		 * Order the definition was expanded in by the traversal
+		 */
+		final int index;
+
+		Frame(String key, boolean counted, int index) {
+			this.key = key;
+			this.counted = counted;
+			this.index = index;
+		}
+	}
+
+	/**
+	 * A schema to expand: a ref to a definition, or the properties of an
+	 * inline schema
+	 */
+	private static final class Target {
+		final String ref;
+		final Map<String, Property> properties;
+
+		Target(String ref, Map<String, Property> properties) {
+			this.ref = ref;
+			this.properties = properties;
+		}
+
+		static Target ref(String ref) {
+			return null == ref ? null : new Target(ref, null);
+		}
+	}
+
+	/**
+	 * A property of an expanded schema: a leaf property, or the schemas of a
+	 * property which are expanded in turn, a null schema standing for a
+	 * property present on one side only
+	 */
+	private static final class Step {
+		ElPath path;
+		Property property;
+		boolean isLeft;
+		Target left;
+		Target right;
+
+		static Step leaf(Property property, String name, boolean isLeft) {
+			Step step = new Step();
+			step.property = property;
+			step.path = ElPath.of(name);
+			step.isLeft = isLeft;
+			return step;
+		}
+
+		static Step schemas(Target left, Target right, String name) {
+			Step step = new Step();
+			step.left = left;
+			step.right = right;
+			step.path = ElPath.of(name);
+			return step;
+		}
+	}
+
 }
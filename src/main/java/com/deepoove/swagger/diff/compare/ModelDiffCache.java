@@ -0,0 +1,72 @@
+package com.deepoove.swagger.diff.compare;
+
+import com.deepoove.swagger.diff.model.ElProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remembers the property diff of each pair of definitions, and the flattened
+ * properties of each definition, for the duration of one comparison.
+ * <p>
+ * Entries are relative to the definition they were computed for and are
+ * re-based under the el of every property referencing it. Only entries whose
+ * traversal was not cut at a definition expanded before them, nor stopped by
+ * the traversal budget, are kept: those do not depend on the path they were
+ * reached from. Safe to share between threads.
+ */
+class ModelDiffCache {
+
+	private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+	Entry get(String key) {
+		return entries.get(key);
+	}
+
+	Entry put(String key, Entry entry) {
+		if (entry.low != Entry.UNCUT || entry.truncated) return entry;
+		Entry previous = entries.putIfAbsent(key, entry);
+		return null == previous ? entry : previous;
+	}
+
+	static String pairKey(String leftRef, String rightRef) {
+		return "=" + leftRef + "\u0000" + rightRef;
+	}
+
+	static String flattenKey(String ref, boolean isLeft) {
+		return (isLeft ? "<" : ">") + ref;
+	}
+
+	static final class Entry {
+		static final int UNCUT = Integer.MAX_VALUE;
+
+		final List<ElProperty> increased = new ArrayList<ElProperty>();
+		final List<ElProperty> missing = new ArrayList<ElProperty>();
+
+		/**
+		 * Order of the earliest expanded definition a ref cycle was cut at while
+		 * computing this entry, {@link #UNCUT} when none
+		 */
+		int low = UNCUT;
+
+		/**
+		 * Whether definitions were left unexpanded, over the traversal budget
+		 */
+		boolean truncated;
+
+		static Entry cut(int index) {
+			Entry entry = new Entry();
+			entry.low = index;
+			return entry;
+		}
+
+		static Entry truncated() {
+			Entry entry = new Entry();
+			entry.truncated = true;
+			return entry;
+		}
+	}
+
+}
@@ -1,8 +1,9 @@
 package com.deepoove.swagger.diff.compare;
 
 import com.deepoove.swagger.diff.model.ChangedParameter;
+import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.ListMultimap;
 import io.swagger.models.Model;
-import io.swagger.models.RefModel;
 import io.swagger.models.parameters.BodyParameter;
 import io.swagger.models.parameters.Parameter;
 import org.apache.commons.lang3.StringUtils;
@@ -16,38 +17,40 @@ public class ParameterDiff {
 	private List<Parameter> increased;
 	private List<Parameter> missing;
 	private List<ChangedParameter> changed;
+	private boolean truncated;
 
-	Map<String, Model> oldDedinitions;
-	Map<String, Model> newDedinitions;
+	private DiffContext context;
 
 	private ParameterDiff() {
 	}
 
 	public static ParameterDiff buildWithDefinition(Map<String, Model> left,
 													Map<String, Model> right) {
+		return buildWithContext(new DiffContext(left, right));
+	}
+
+	public static ParameterDiff buildWithContext(DiffContext context) {
 		ParameterDiff diff = new ParameterDiff();
-		diff.oldDedinitions = left;
-		diff.newDedinitions = right;
+		diff.context = context;
 		return diff;
 	}
 
 	public ParameterDiff diff(List<Parameter> left,
 							  List<Parameter> right) {
 		ParameterDiff instance = new ParameterDiff();
-		if (null == left) left = new ArrayList<Parameter>();
-		if (null == right) right = new ArrayList<Parameter>();
+		left = resolve(left, true);
+		right = resolve(right, false);
 
-		instance.increased = new ArrayList<Parameter>(right);
+		ListMultimap<String, Parameter> rightIndex = index(right);
 		instance.missing = new ArrayList<Parameter>();
 		instance.changed = new ArrayList<ChangedParameter>();
 		for (Parameter leftPara : left) {
 			String name = leftPara.getName();
-			int index = index(instance.increased, name);
-			if (-1 == index) {
+			List<Parameter> matched = rightIndex.get(key(leftPara));
+			if (matched.isEmpty()) {
 				instance.missing.add(leftPara);
 			} else {
-				Parameter rightPara = instance.increased.get(index);
-				instance.increased.remove(index);
+				Parameter rightPara = matched.remove(0);
 
 				ChangedParameter changedParameter = new ChangedParameter();
 				changedParameter.setLeftParameter(leftPara);
@@ -58,15 +61,10 @@ public class ParameterDiff {
 					Model leftSchema = leftBodyPara.getSchema();
 					BodyParameter rightBodyPara = (BodyParameter) rightPara;
 					Model rightSchema = rightBodyPara.getSchema();
-					if (leftSchema instanceof RefModel && rightSchema instanceof RefModel) {
-						String leftRef = ((RefModel) leftSchema).getSimpleRef();
-						String rightRef = ((RefModel) rightSchema).getSimpleRef();
-						Model leftModel = oldDedinitions.get(leftRef);
-						Model rightModel = newDedinitions.get(rightRef);
-						ModelDiff diff = ModelDiff.buildWithDefinition(oldDedinitions, newDedinitions).diff(leftModel, rightModel, name);
-						changedParameter.setIncreased(diff.getIncreased());
-						changedParameter.setMissing(diff.getMissing());
-					}
+					ModelDiff diff = ModelDiff.buildWithContext(context).diff(leftSchema, rightSchema, name);
+					changedParameter.setIncreased(diff.getIncreased());
+					changedParameter.setMissing(diff.getMissing());
+					instance.truncated |= diff.isTruncated();
 				}
 
 
@@ -89,18 +87,42 @@ public class ParameterDiff {
 			}
 
 		}
+		instance.increased = new ArrayList<Parameter>(rightIndex.values());
 		return instance;
 	}
 
-	private static int index(List<Parameter> right, String name) {
-		int i = 0;
-		for (; i < right.size(); i++) {
-			Parameter para = right.get(i);
-			if (name.equals(para.getName())) {
-				return i;
-			}
+	/**
+	 * Parameters with their refs to other files resolved through the context
+	 */
+	private List<Parameter> resolve(List<Parameter> parameters, boolean isLeft) {
+		List<Parameter> resolved = new ArrayList<Parameter>();
+		if (null == parameters) return resolved;
+		for (Parameter para : parameters) {
+			resolved.add(context.getParameter(para, isLeft));
+		}
+		return resolved;
+	}
+
+	/**
+	 * Indexes parameters by location and name, keeping their order
+	 */
+	private static ListMultimap<String, Parameter> index(List<Parameter> parameters) {
+		ListMultimap<String, Parameter> index = LinkedListMultimap.create(parameters.size());
+		for (Parameter para : parameters) {
+			index.put(key(para), para);
 		}
-		return -1;
+		return index;
+	}
+
+	private static String key(Parameter para) {
+		return para.getIn() + ":" + para.getName();
+	}
+
+	/**
+	 * Whether the diff of a body schema was truncated over the traversal budget
+	 */
+	public boolean isTruncated() {
+		return truncated;
 	}
 
 	public List<Parameter> getIncreased() {
@@ -3,7 +3,6 @@ package com.deepoove.swagger.diff.compare;
 import com.deepoove.swagger.diff.model.ElProperty;
 import io.swagger.models.Model;
 import io.swagger.models.properties.Property;
-import io.swagger.models.properties.RefProperty;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -13,9 +12,9 @@ public class PropertyDiff {
 
 	private List<ElProperty> increased;
 	private List<ElProperty> missing;
+	private boolean truncated;
 
-	Map<String, Model> oldDedinitions;
-	Map<String, Model> newDedinitions;
+	private DiffContext context;
 
 	private PropertyDiff() {
 		increased = new ArrayList<ElProperty>();
@@ -24,25 +23,32 @@ public class PropertyDiff {
 
 	public static PropertyDiff buildWithDefinition(Map<String, Model> left,
 												   Map<String, Model> right) {
+		return buildWithContext(new DiffContext(left, right));
+	}
+
+	public static PropertyDiff buildWithContext(DiffContext context) {
 		PropertyDiff diff = new PropertyDiff();
-		diff.oldDedinitions = left;
-		diff.newDedinitions = right;
+		diff.context = context;
 		return diff;
 	}
 
 	public PropertyDiff diff(Property left, Property right) {
-		if ((null == left || left instanceof RefProperty) && (null == right || right instanceof RefProperty)) {
-			Model leftModel = null == left ? null : oldDedinitions.get(((RefProperty) left).getSimpleRef());
-			Model rightModel = null == right ? null : newDedinitions.get(((RefProperty) right).getSimpleRef());
-			ModelDiff diff = ModelDiff
-					.buildWithDefinition(oldDedinitions, newDedinitions)
-					.diff(leftModel, rightModel);
-			increased.addAll(diff.getIncreased());
-			missing.addAll(diff.getMissing());
-		}
+		ModelDiff diff = ModelDiff
+				.buildWithContext(context)
+				.diff(left, right, null);
+		increased.addAll(diff.getIncreased());
+		missing.addAll(diff.getMissing());
+		truncated |= diff.isTruncated();
 		return this;
 	}
 
+	/**
+	 * Whether the diff was truncated over the traversal budget
+	 */
+	public boolean isTruncated() {
+		return truncated;
+	}
+
 	public List<ElProperty> getIncreased() {
 		return increased;
 	}
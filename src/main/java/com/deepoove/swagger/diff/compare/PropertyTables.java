@@ -0,0 +1,114 @@
+package com.deepoove.swagger.diff.compare;
+
+import io.swagger.models.ArrayModel;
+import io.swagger.models.ComposedModel;
+import io.swagger.models.Model;
+import io.swagger.models.RefModel;
+import io.swagger.models.properties.ArrayProperty;
+import io.swagger.models.properties.ObjectProperty;
+import io.swagger.models.properties.Property;
+import io.swagger.models.properties.RefProperty;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Flattened properties of the definitions of one comparison: the properties
+ * of a model together with the ones of all the models it is composed of
+ * through allOf, and the ones of the items of array models. Each definition
+ * is flattened once and shared by every traversal. Safe to share between
+ * threads.
+ */
+class PropertyTables {
+
+	private final DiffContext context;
+	private final ConcurrentMap<String, Map<String, Property>> tables = new ConcurrentHashMap<String, Map<String, Property>>();
+
+	PropertyTables(DiffContext context) {
+		this.context = context;
+	}
+
+	/**
+	 * Flattened properties of a definition, or null when it is not found
+	 */
+	Map<String, Property> get(String ref, boolean isLeft) {
+		String key = (isLeft ? "<" : ">") + ref;
+		Map<String, Property> table = tables.get(key);
+		if (null != table) return table;
+		Model model = context.getDefinition(ref, isLeft);
+		if (null == model) return null;
+		table = flatten(model, isLeft);
+		Map<String, Property> previous = tables.putIfAbsent(key, table);
+		return null == previous ? table : previous;
+	}
+
+	/**
+	 * Flattened properties of a model, the allOf models and array items it
+	 * reaches are expanded in declaration order, the last declared property of
+	 * a name wins
+	 */
+	@SuppressWarnings("unchecked")
+	Map<String, Property> flatten(Model model, boolean isLeft) {
+		Map<String, Property> table = new LinkedHashMap<String, Property>();
+		Set<String> reached = new HashSet<String>();
+		Deque<Object> stack = new ArrayDeque<Object>();
+		stack.push(model);
+		while (!stack.isEmpty()) {
+			Object top = stack.pop();
+			if (top instanceof String) {
+				String ref = (String) top;
+				if (!reached.add(ref)) continue;
+				Map<String, Property> cached = tables.get((isLeft ? "<" : ">") + ref);
+				if (null != cached) {
+					table.putAll(cached);
+					continue;
+				}
+				top = context.getDefinition(ref, isLeft);
+				if (null == top) continue;
+			}
+			if (top instanceof Map) {
+				table.putAll((Map<String, Property>) top);
+			} else if (top instanceof Property) {
+				Property property = items((Property) top);
+				if (property instanceof RefProperty) {
+					stack.push(((RefProperty) property).getSimpleRef());
+				} else if (property instanceof ObjectProperty && null != ((ObjectProperty) property).getProperties()) {
+					table.putAll(((ObjectProperty) property).getProperties());
+				}
+			} else if (top instanceof RefModel) {
+				stack.push(((RefModel) top).getSimpleRef());
+			} else if (top instanceof ArrayModel) {
+				if (null != ((ArrayModel) top).getItems()) stack.push(((ArrayModel) top).getItems());
+			} else if (top instanceof ComposedModel) {
+				ComposedModel composed = (ComposedModel) top;
+				if (null != composed.getProperties()) stack.push(composed.getProperties());
+				List<Model> allOf = null == composed.getAllOf() ? Collections.<Model>emptyList() : composed.getAllOf();
+				for (int i = allOf.size() - 1; i >= 0; i--) {
+					stack.push(allOf.get(i));
+				}
+			} else if (null != top && null != ((Model) top).getProperties()) {
+				table.putAll(((Model) top).getProperties());
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * The items of a (nested) array property, or the property itself
+	 */
+	static Property items(Property property) {
+		while (property instanceof ArrayProperty && null != ((ArrayProperty) property).getItems()) {
+			property = ((ArrayProperty) property).getItems();
+		}
+		return property;
+	}
+
+}
@@ -0,0 +1,32 @@
+package com.deepoove.swagger.diff.compare;
+
+import io.swagger.models.Model;
+import io.swagger.models.Response;
+import io.swagger.models.parameters.Parameter;
+
+/**
+ * Resolves refs to definitions, parameters and responses outside of the spec,
+ * the first time a comparison dereferences them. Implementations must be safe to share between
+ * threads.
+ */
+public interface RefResolver {
+
+	/**
+	 * @param ref The simple ref, like {@code other.json#/definitions/Pet}
+	 * @return The model the ref points to, or null when it cannot be resolved
+	 */
+	Model resolve(String ref);
+
+	/**
+	 * @param ref The ref, like {@code other.json#/parameters/limit}
+	 * @return The parameter the ref points to, or null when it cannot be resolved
+	 */
+	Parameter resolveParameter(String ref);
+
+	/**
+	 * @param ref The ref, like {@code other.json#/responses/NotFound}
+	 * @return The response the ref points to, or null when it cannot be resolved
+	 */
+	Response resolveResponse(String ref);
+
+}
@@ -0,0 +1,114 @@
+package com.deepoove.swagger.diff.compare;
+
+import com.deepoove.swagger.diff.model.ChangedResponse;
+import io.swagger.models.Model;
+import io.swagger.models.Response;
+import io.swagger.models.properties.Property;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Diffs the responses of two operations by status code: the schema and the
+ * headers of every code present in both. Schemas resolving to the same pair
+ * of definitions are diffed once per comparison, through the cache of the
+ * context, whatever the codes and operations they are used by.
+ */
+public class ResponseDiff {
+
+	private Map<String, Response> increased;
+	private Map<String, Response> missing;
+	private Map<String, ChangedResponse> changed;
+	private boolean truncated;
+
+	private DiffContext context;
+
+	private ResponseDiff() {
+	}
+
+	public static ResponseDiff buildWithDefinition(Map<String, Model> left,
+												   Map<String, Model> right) {
+		return buildWithContext(new DiffContext(left, right));
+	}
+
+	public static ResponseDiff buildWithContext(DiffContext context) {
+		ResponseDiff diff = new ResponseDiff();
+		diff.context = context;
+		return diff;
+	}
+
+	public ResponseDiff diff(Map<String, Response> left,
+							 Map<String, Response> right) {
+		ResponseDiff instance = new ResponseDiff();
+		left = resolve(left, true);
+		right = resolve(right, false);
+		MapKeyDiff<String, Response> codeDiff = MapKeyDiff.diff(left, right);
+		instance.increased = null == codeDiff.getIncreased() ? new LinkedHashMap<String, Response>() : codeDiff.getIncreased();
+		instance.missing = null == codeDiff.getMissing() ? new LinkedHashMap<String, Response>() : codeDiff.getMissing();
+		instance.changed = new LinkedHashMap<String, ChangedResponse>();
+		for (String code : codeDiff.getSharedKey()) {
+			Response leftResponse = left.get(code);
+			Response rightResponse = right.get(code);
+			ChangedResponse changedResponse = new ChangedResponse();
+
+			PropertyDiff propertyDiff = PropertyDiff.buildWithContext(context)
+					.diff(leftResponse.getSchema(), rightResponse.getSchema());
+			changedResponse.setAddProps(propertyDiff.getIncreased());
+			changedResponse.setMissingProps(propertyDiff.getMissing());
+			instance.truncated |= propertyDiff.isTruncated();
+
+			MapKeyDiff<String, Property> headerDiff = MapKeyDiff.diff(leftResponse.getHeaders(), rightResponse.getHeaders());
+			if (null != headerDiff.getIncreased()) changedResponse.getAddHeaders().putAll(headerDiff.getIncreased());
+			if (null != headerDiff.getMissing()) changedResponse.getMissingHeaders().putAll(headerDiff.getMissing());
+
+			if (changedResponse.isDiff()) {
+				instance.changed.put(code, changedResponse);
+			}
+		}
+		return instance;
+	}
+
+	/**
+	 * Responses with their refs to other files resolved through the context
+	 */
+	private Map<String, Response> resolve(Map<String, Response> responses, boolean isLeft) {
+		if (null == responses) return null;
+		Map<String, Response> resolved = new LinkedHashMap<String, Response>();
+		for (Map.Entry<String, Response> response : responses.entrySet()) {
+			resolved.put(response.getKey(), context.getResponse(response.getValue(), isLeft));
+		}
+		return resolved;
+	}
+
+	/**
+	 * Whether the diff of a schema was truncated over the traversal budget
+	 */
+	public boolean isTruncated() {
+		return truncated;
+	}
+
+	public Map<String, Response> getIncreased() {
+		return increased;
+	}
+
+	public void setIncreased(Map<String, Response> increased) {
+		this.increased = increased;
+	}
+
+	public Map<String, Response> getMissing() {
+		return missing;
+	}
+
+	public void setMissing(Map<String, Response> missing) {
+		this.missing = missing;
+	}
+
+	public Map<String, ChangedResponse> getChanged() {
+		return changed;
+	}
+
+	public void setChanged(Map<String, ChangedResponse> changed) {
+		this.changed = changed;
+	}
+
+}
@@ -0,0 +1,58 @@
+package com.deepoove.swagger.diff.compare;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits of the definition traversals of one comparison. A traversal going
+ * over a limit stops expanding definitions and gives a truncated result: the
+ * differences found so far, without the ones under the definitions it did not
+ * expand. Unlimited by default.
+ */
+public class TraversalBudget {
+
+	private int maxDepth = Integer.MAX_VALUE;
+	private int maxNodes = Integer.MAX_VALUE;
+	private long timeLimitNanos = Long.MAX_VALUE;
+
+	public static TraversalBudget unlimited() {
+		return new TraversalBudget();
+	}
+
+	/**
+	 * Deepest nesting of definitions expanded below a property, parameter or response
+	 */
+	public TraversalBudget maxDepth(int maxDepth) {
+		this.maxDepth = maxDepth;
+		return this;
+	}
+
+	/**
+	 * Most definitions expanded below one property, parameter or response
+	 */
+	public TraversalBudget maxNodes(int maxNodes) {
+		this.maxNodes = maxNodes;
+		return this;
+	}
+
+	/**
+	 * Time after which the comparison expands no more definitions, counted from
+	 * the creation of its context
+	 */
+	public TraversalBudget timeLimit(long timeLimit, TimeUnit unit) {
+		this.timeLimitNanos = unit.toNanos(timeLimit);
+		return this;
+	}
+
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	public int getMaxNodes() {
+		return maxNodes;
+	}
+
+	public long getTimeLimitNanos() {
+		return timeLimitNanos;
+	}
+
+}
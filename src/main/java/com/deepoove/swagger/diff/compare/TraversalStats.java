@@ -0,0 +1,50 @@
+package com.deepoove.swagger.diff.compare;
+
+/**
+ * Counts what the definition traversals running on one thread did since the
+ * last reset
+ */
+public class TraversalStats {
+
+	int nodes;
+	int depth;
+	int maxDepth;
+	int elProperties;
+
+	/**
+	 * Definitions expanded, including the ones found in the cache
+	 */
+	public int getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * Deepest nesting of definitions reached
+	 */
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	/**
+	 * ElProperty instances created
+	 */
+	public int getElProperties() {
+		return elProperties;
+	}
+
+	public void reset() {
+		nodes = 0;
+		depth = 0;
+		maxDepth = 0;
+		elProperties = 0;
+	}
+
+	void enter() {
+		if (++depth > maxDepth) maxDepth = depth;
+	}
+
+	void exit() {
+		depth--;
+	}
+
+}
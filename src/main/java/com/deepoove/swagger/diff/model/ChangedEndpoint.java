@@ -14,6 +14,8 @@ public class ChangedEndpoint implements Changed {
 
 	private Map<HttpMethod, ChangedOperation> changedOperations;
 
+	private boolean truncated;
+
 	public Map<HttpMethod, Operation> getNewOperations() {
 		return newOperations;
 	}
@@ -49,6 +51,18 @@ public class ChangedEndpoint implements Changed {
 		this.pathUrl = pathUrl;
 	}
 
+	/**
+	 * Whether some schema diffs of the endpoint were truncated over the
+	 * traversal budget, so it may have more changes than reported
+	 */
+	public boolean isTruncated() {
+		return truncated;
+	}
+
+	public void setTruncated(boolean truncated) {
+		this.truncated = truncated;
+	}
+
 	public boolean isDiff() {
 //		newOperations.isEmpty() 
 //		|| !missingOperations.isEmpty()
@@ -1,12 +1,21 @@
 package com.deepoove.swagger.diff.model;
 
+import io.swagger.models.Response;
 import io.swagger.models.parameters.Parameter;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class ChangedOperation implements Changed {
 
+	/**
+	 * Status code whose schema is the return type: its schema changes are the
+	 * add and missing props
+	 */
+	public static final String RETURN_TYPE_CODE = "200";
+
 	private String summary;
 
 	private List<Parameter> addParameters = new ArrayList<Parameter>();
@@ -17,6 +26,10 @@ public class ChangedOperation implements Changed {
 	private List<ElProperty> addProps = new ArrayList<ElProperty>();
 	private List<ElProperty> missingProps = new ArrayList<ElProperty>();
 
+	private Map<String, Response> addResponses = new LinkedHashMap<String, Response>();
+	private Map<String, Response> missingResponses = new LinkedHashMap<String, Response>();
+	private Map<String, ChangedResponse> changedResponses = new LinkedHashMap<String, ChangedResponse>();
+
 	public List<Parameter> getAddParameters() {
 		return addParameters;
 	}
@@ -57,6 +70,40 @@ public class ChangedOperation implements Changed {
 		this.missingProps = missingProps;
 	}
 
+	/**
+	 * Responses of the status codes only the new operation has
+	 */
+	public Map<String, Response> getAddResponses() {
+		return addResponses;
+	}
+
+	public void setAddResponses(Map<String, Response> addResponses) {
+		this.addResponses = addResponses;
+	}
+
+	/**
+	 * Responses of the status codes only the old operation has
+	 */
+	public Map<String, Response> getMissingResponses() {
+		return missingResponses;
+	}
+
+	public void setMissingResponses(Map<String, Response> missingResponses) {
+		this.missingResponses = missingResponses;
+	}
+
+	/**
+	 * Changes of the responses of the status codes both operations have, the
+	 * schema changes of {@link #RETURN_TYPE_CODE} being the add and missing props too
+	 */
+	public Map<String, ChangedResponse> getChangedResponses() {
+		return changedResponses;
+	}
+
+	public void setChangedResponses(Map<String, ChangedResponse> changedResponses) {
+		this.changedResponses = changedResponses;
+	}
+
 	public String getSummary() {
 		return summary;
 	}
@@ -68,7 +115,7 @@ public class ChangedOperation implements Changed {
 	public boolean isDiff() {
 		return !addParameters.isEmpty() || !missingParameters.isEmpty()
 				|| !changedParameter.isEmpty() || !addProps.isEmpty()
-				|| !missingProps.isEmpty();
+				|| !missingProps.isEmpty() || isDiffResponse();
 	}
 
 	public boolean isDiffProp() {
@@ -76,6 +123,18 @@ public class ChangedOperation implements Changed {
 				|| !missingProps.isEmpty();
 	}
 
+	/**
+	 * Whether responses changed other than by the schema of
+	 * {@link #RETURN_TYPE_CODE}, which {@link #isDiffProp()} tells about
+	 */
+	public boolean isDiffResponse() {
+		if (!addResponses.isEmpty() || !missingResponses.isEmpty()) return true;
+		for (Map.Entry<String, ChangedResponse> entry : changedResponses.entrySet()) {
+			if (entry.getValue().isDiffHeader() || !RETURN_TYPE_CODE.equals(entry.getKey())) return true;
+		}
+		return false;
+	}
+
 	public boolean isDiffParam() {
 		return !addParameters.isEmpty() || !missingParameters.isEmpty()
 				|| !changedParameter.isEmpty();
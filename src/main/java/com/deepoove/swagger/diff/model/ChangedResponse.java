@@ -0,0 +1,65 @@
+package com.deepoove.swagger.diff.model;
+
+import io.swagger.models.properties.Property;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Changes of the response of one status code present in both operations
+ */
+public class ChangedResponse implements Changed {
+
+	private List<ElProperty> addProps = new ArrayList<ElProperty>();
+	private List<ElProperty> missingProps = new ArrayList<ElProperty>();
+
+	private Map<String, Property> addHeaders = new LinkedHashMap<String, Property>();
+	private Map<String, Property> missingHeaders = new LinkedHashMap<String, Property>();
+
+	public List<ElProperty> getAddProps() {
+		return addProps;
+	}
+
+	public void setAddProps(List<ElProperty> addProps) {
+		this.addProps = addProps;
+	}
+
+	public List<ElProperty> getMissingProps() {
+		return missingProps;
+	}
+
+	public void setMissingProps(List<ElProperty> missingProps) {
+		this.missingProps = missingProps;
+	}
+
+	public Map<String, Property> getAddHeaders() {
+		return addHeaders;
+	}
+
+	public void setAddHeaders(Map<String, Property> addHeaders) {
+		this.addHeaders = addHeaders;
+	}
+
+	public Map<String, Property> getMissingHeaders() {
+		return missingHeaders;
+	}
+
+	public void setMissingHeaders(Map<String, Property> missingHeaders) {
+		this.missingHeaders = missingHeaders;
+	}
+
+	public boolean isDiff() {
+		return isDiffProp() || isDiffHeader();
+	}
+
+	public boolean isDiffProp() {
+		return !addProps.isEmpty() || !missingProps.isEmpty();
+	}
+
+	public boolean isDiffHeader() {
+		return !addHeaders.isEmpty() || !missingHeaders.isEmpty();
+	}
+
+}
@@ -0,0 +1,24 @@
+package com.deepoove.swagger.diff.model;
+
+import io.swagger.models.parameters.AbstractParameter;
+import io.swagger.models.parameters.Parameter;
+
+/**
+ * Copy of the parts of a parameter the renderers use, held by a detached diff
+ * instead of the parameter of the parsed spec.
+ */
+public final class DetachedParameter extends AbstractParameter implements Parameter {
+
+	private DetachedParameter(Parameter parameter) {
+		setIn(parameter.getIn());
+		setName(parameter.getName());
+		setDescription(parameter.getDescription());
+		setRequired(parameter.getRequired());
+	}
+
+	public static Parameter of(Parameter parameter) {
+		if (null == parameter || parameter instanceof DetachedParameter) return parameter;
+		return new DetachedParameter(parameter);
+	}
+
+}
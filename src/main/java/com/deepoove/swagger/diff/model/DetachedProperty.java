@@ -0,0 +1,23 @@
+package com.deepoove.swagger.diff.model;
+
+import io.swagger.models.properties.AbstractProperty;
+import io.swagger.models.properties.Property;
+
+/**
+ * Copy of the type and description of a property, held by a detached diff
+ * instead of the property of the parsed spec.
+ */
+public final class DetachedProperty extends AbstractProperty {
+
+	private DetachedProperty(Property property) {
+		setType(property.getType());
+		setFormat(property.getFormat());
+		setDescription(property.getDescription());
+	}
+
+	public static Property of(Property property) {
+		if (null == property || property instanceof DetachedProperty) return property;
+		return new DetachedProperty(property);
+	}
+
+}
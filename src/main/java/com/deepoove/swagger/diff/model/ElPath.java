@@ -0,0 +1,66 @@
+package com.deepoove.swagger.diff.model;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Immutable el of a property, such as {@code body.category.name}, kept as a
+ * tree of shared nodes rather than as a string: a node is either a name under
+ * a parent el, or a relative el under a prefix. Re-basing an el under another
+ * one allocates a single node whatever their lengths, and the string is only
+ * built by {@link #toString()}.
+ */
+public final class ElPath {
+
+	private final ElPath prefix;
+	private final String name;
+	private final ElPath relative;
+
+	private ElPath(ElPath prefix, String name, ElPath relative) {
+		this.prefix = prefix;
+		this.name = name;
+		this.relative = relative;
+	}
+
+	public static ElPath of(String name) {
+		return null == name ? null : new ElPath(null, name, null);
+	}
+
+	/**
+	 * The el of the given property of this el
+	 */
+	public ElPath child(String name) {
+		return new ElPath(this, name, null);
+	}
+
+	/**
+	 * The given el re-based under the prefix, either of them may be null
+	 */
+	public static ElPath join(ElPath prefix, ElPath relative) {
+		if (null == prefix) return relative;
+		if (null == relative) return prefix;
+		return new ElPath(prefix, null, relative);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		Deque<Object> stack = new ArrayDeque<Object>();
+		stack.push(this);
+		boolean first = true;
+		while (!stack.isEmpty()) {
+			Object top = stack.pop();
+			if (top instanceof String) {
+				if (!first) sb.append('.');
+				sb.append((String) top);
+				first = false;
+				continue;
+			}
+			ElPath path = (ElPath) top;
+			stack.push(null == path.name ? path.relative : path.name);
+			if (null != path.prefix) stack.push(path.prefix);
+		}
+		return sb.toString();
+	}
+
+}
@@ -4,7 +4,7 @@ import io.swagger.models.properties.Property;
 
 public class ElProperty {
 
-	private String el;
+	private ElPath path;
 
 	private Property property;
 
@@ -16,12 +16,23 @@ public class ElProperty {
 		this.property = property;
 	}
 
+	/**
+	 * The el of the property, built from its path on each call
+	 */
 	public String getEl() {
-		return el;
+		return null == path ? null : path.toString();
 	}
 
 	public void setEl(String el) {
-		this.el = el;
+		this.path = ElPath.of(el);
+	}
+
+	public ElPath getPath() {
+		return path;
+	}
+
+	public void setPath(ElPath path) {
+		this.path = path;
 	}
 
 }
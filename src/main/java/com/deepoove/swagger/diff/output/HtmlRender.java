@@ -3,11 +3,13 @@ package com.deepoove.swagger.diff.output;
 import com.deepoove.swagger.diff.SwaggerDiff;
 import com.deepoove.swagger.diff.model.*;
 import io.swagger.models.HttpMethod;
+import io.swagger.models.Response;
 import io.swagger.models.parameters.Parameter;
 import io.swagger.models.properties.Property;
 import j2html.tags.ContainerTag;
 import j2html.tags.Tag;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -28,48 +30,73 @@ public class HtmlRender implements OutputRender {
 	}
 
 	public String render(SwaggerDiff diff) {
+		final StringBuilder sb = new StringBuilder();
+		try {
+			render(diff, sb);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+
+		return sb.toString();
+	}
+
+	public void render(SwaggerDiff diff, Appendable out) throws IOException {
+		final long start = System.nanoTime();
+		write(diff, out);
+		if (null != diff.getListener()) {
+			diff.getListener().rendered("html", System.nanoTime() - start);
+		}
+	}
+
+	private void write(SwaggerDiff diff, Appendable out) throws IOException {
+		final ContainerTag html = html().attr("lang", "en");
+		final ContainerTag body = body();
+		final ContainerTag article = div().withClass("article");
+		out.append(document().render()).append(html.renderOpenTag());
+		out.append(head().with(
+				meta().withCharset("utf-8"),
+				title(title),
+				link().withRel("stylesheet").withHref(linkCss)
+		).render());
+		out.append(body.renderOpenTag()).append(header().with(h1(title)).render());
+		out.append(article.renderOpenTag());
+
 		final List<Endpoint> newEndpoints = diff.getNewEndpoints();
-		final ContainerTag ol_newEndpoint = ol_newEndpoint(newEndpoints);
+		openSection(out, "What's New");
+		ol_newEndpoint(out, newEndpoints);
+		closeSection(out);
 
 		final List<Endpoint> missingEndpoints = diff.getMissingEndpoints();
-		final ContainerTag ol_missingEndpoint = ol_missingEndpoint(missingEndpoints);
+		openSection(out, "What's Deprecated");
+		ol_missingEndpoint(out, missingEndpoints);
+		closeSection(out);
 
 		final List<ChangedEndpoint> changedEndpoints = diff.getChangedEndpoints();
-		final Tag ol_changed = ol_changed(changedEndpoints);
+		openSection(out, "What's Changed");
+		ol_changed(out, changedEndpoints);
+		closeSection(out);
 
-		return renderHtml(ol_newEndpoint, ol_missingEndpoint, ol_changed);
+		out.append(article.renderCloseTag()).append(body.renderCloseTag()).append(html.renderCloseTag());
 	}
 
-	private String renderHtml(Tag ol_new, Tag ol_miss, Tag ol_changed) {
-		ContainerTag html = html().attr("lang", "en").with(
-				head().with(
-						meta().withCharset("utf-8"),
-						title(title),
-						link().withRel("stylesheet").withHref(linkCss)
-				),
-				body().with(
-						header().with(h1(title)),
-						div().withClass("article").with(
-								div().with(h2("What's New"), hr(), ol_new),
-								div().with(h2("What's Deprecated"), hr(), ol_miss),
-								div().with(h2("What's Changed"), hr(), ol_changed)
-						)
-				)
-		);
+	private void openSection(Appendable out, String heading) throws IOException {
+		out.append(div().renderOpenTag()).append(h2(heading).render()).append(hr().render());
+	}
 
-		return document().render() + html.render();
+	private void closeSection(Appendable out) throws IOException {
+		out.append(div().renderCloseTag());
 	}
 
-	private ContainerTag ol_newEndpoint(List<Endpoint> endpoints) {
+	private void ol_newEndpoint(Appendable out, List<Endpoint> endpoints) throws IOException {
 		final ContainerTag ol = ol();
+		out.append(ol.renderOpenTag());
 		if (endpoints != null) {
 			for (Endpoint endpoint : endpoints) {
-				ol.with(li_newEndpoint(endpoint.getMethod().toString(),
-						endpoint.getPathUrl(), endpoint.getSummary()));
+				out.append(li_newEndpoint(endpoint.getMethod().toString(),
+						endpoint.getPathUrl(), endpoint.getSummary()).render());
 			}
 		}
-
-		return ol;
+		out.append(ol.renderCloseTag());
 	}
 
 	private ContainerTag li_newEndpoint(String method, String path,
@@ -78,16 +105,16 @@ public class HtmlRender implements OutputRender {
 				.with(span(desc));
 	}
 
-	private ContainerTag ol_missingEndpoint(List<Endpoint> endpoints) {
+	private void ol_missingEndpoint(Appendable out, List<Endpoint> endpoints) throws IOException {
 		final ContainerTag ol = ol();
+		out.append(ol.renderOpenTag());
 		if (endpoints != null) {
 			for (Endpoint endpoint : endpoints) {
-				ol.with(li_missingEndpoint(endpoint.getMethod().toString(),
-						endpoint.getPathUrl(), endpoint.getSummary()));
+				out.append(li_missingEndpoint(endpoint.getMethod().toString(),
+						endpoint.getPathUrl(), endpoint.getSummary()).render());
 			}
 		}
-
-		return ol;
+		out.append(ol.renderCloseTag());
 	}
 
 	private ContainerTag li_missingEndpoint(String method, String path,
@@ -96,8 +123,9 @@ public class HtmlRender implements OutputRender {
 				del().withText(path)).with(span(" " + desc));
 	}
 
-	private Tag ol_changed(List<ChangedEndpoint> changedEndpoints) {
+	private void ol_changed(Appendable out, List<ChangedEndpoint> changedEndpoints) throws IOException {
 		final ContainerTag ol = ol();
+		out.append(ol.renderOpenTag());
 		if (null != changedEndpoints) {
 			for (ChangedEndpoint changedEndpoint : changedEndpoints) {
 				final String pathUrl = changedEndpoint.getPathUrl();
@@ -114,13 +142,15 @@ public class HtmlRender implements OutputRender {
 					if (changedOperation.isDiffProp()) {
 						ul_detail.with(li().with(h3("Return Type")).with(ul_response(changedOperation)));
 					}
-					ol.with(li().with(span(method).withClass(method)).withText(pathUrl + " ").with(span(desc))
-							.with(ul_detail));
+					if (changedOperation.isDiffResponse()) {
+						ul_detail.with(li().with(h3("Response")).with(ul_responseCode(changedOperation)));
+					}
+					out.append(li().with(span(method).withClass(method)).withText(pathUrl + " ").with(span(desc))
+							.with(ul_detail).render());
 				}
 			}
 		}
-
-		return ol;
+		out.append(ol.renderCloseTag());
 	}
 
 	private Tag ul_response(ChangedOperation changedOperation) {
@@ -137,16 +167,52 @@ public class HtmlRender implements OutputRender {
 		return ul;
 	}
 
-	private Tag li_missingProp(ElProperty prop) {
-		final Property property = prop.getProperty();
+	private Tag ul_responseCode(ChangedOperation changedOperation) {
+		final ContainerTag ul = ul().withClass("change response-code");
+		for (Entry<String, Response> entry : changedOperation.getAddResponses().entrySet()) {
+			ul.with(li().withText("Add " + entry.getKey()).with(span(null == entry.getValue().getDescription() ? "" : ("//" + entry.getValue().getDescription())).withClass("comment")));
+		}
+		for (Entry<String, ChangedResponse> entry : changedOperation.getChangedResponses().entrySet()) {
+			final String code = entry.getKey();
+			final ChangedResponse changedResponse = entry.getValue();
+			if (!ChangedOperation.RETURN_TYPE_CODE.equals(code)) {
+				for (ElProperty prop : changedResponse.getAddProps()) {
+					ul.with(li_add(code + " " + prop.getEl(), prop.getProperty()));
+				}
+			}
+			for (Entry<String, Property> header : changedResponse.getAddHeaders().entrySet()) {
+				ul.with(li_add(code + " header " + header.getKey(), header.getValue()));
+			}
+			if (!ChangedOperation.RETURN_TYPE_CODE.equals(code)) {
+				for (ElProperty prop : changedResponse.getMissingProps()) {
+					ul.with(li_missing(code + " " + prop.getEl(), prop.getProperty()));
+				}
+			}
+			for (Entry<String, Property> header : changedResponse.getMissingHeaders().entrySet()) {
+				ul.with(li_missing(code + " header " + header.getKey(), header.getValue()));
+			}
+		}
+		for (Entry<String, Response> entry : changedOperation.getMissingResponses().entrySet()) {
+			ul.with(li().withClass("missing").withText("Delete").with(del(entry.getKey())).with(span(null == entry.getValue().getDescription() ? "" : ("//" + entry.getValue().getDescription())).withClass("comment")));
+		}
 
-		return li().withClass("missing").withText("Delete").with(del(prop.getEl())).with(span(null == property.getDescription() ? "" : ("//" + property.getDescription())).withClass("comment"));
+		return ul;
+	}
+
+	private Tag li_missingProp(ElProperty prop) {
+		return li_missing(prop.getEl(), prop.getProperty());
 	}
 
 	private Tag li_addProp(ElProperty prop) {
-		final Property property = prop.getProperty();
+		return li_add(prop.getEl(), prop.getProperty());
+	}
+
+	private Tag li_missing(String el, Property property) {
+		return li().withClass("missing").withText("Delete").with(del(el)).with(span(null == property.getDescription() ? "" : ("//" + property.getDescription())).withClass("comment"));
+	}
 
-		return li().withText("Add " + prop.getEl()).with(span(null == property.getDescription() ? "" : ("//" + property.getDescription())).withClass("comment"));
+	private Tag li_add(String el, Property property) {
+		return li().withText("Add " + el).with(span(null == property.getDescription() ? "" : ("//" + property.getDescription())).withClass("comment"));
 	}
 
 	private Tag ul_param(ChangedOperation changedOperation) {
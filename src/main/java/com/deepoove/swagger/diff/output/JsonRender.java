@@ -0,0 +1,248 @@
+package com.deepoove.swagger.diff.output;
+
+import com.alibaba.fastjson.JSONWriter;
+import com.deepoove.swagger.diff.SwaggerDiff;
+import com.deepoove.swagger.diff.model.*;
+import io.swagger.models.HttpMethod;
+import io.swagger.models.Response;
+import io.swagger.models.parameters.Parameter;
+import io.swagger.models.properties.Property;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Renders the diff as JSON for tools, written token by token with the
+ * streaming writer of fastjson so that no tree of the report is built:
+ * <pre>
+ * {"newEndpoints":[{"method","pathUrl","summary"}],
+ *  "missingEndpoints":[...],
+ *  "changedEndpoints":[{"method","pathUrl","summary","truncated",
+ *     "addParameters":[{"name","in","required","description"}],
+ *     "missingParameters":[...],
+ *     "changedParameters":[{"name","in","changeRequired","changeDescription",
+ *         "required","description","addProps","missingProps"}],
+ *     "addProps":[{"el","type","description"}], "missingProps":[...],
+ *     "addResponses":[{"code","description"}], "missingResponses":[...],
+ *     "changedResponses":[{"code","addProps","missingProps",
+ *         "addHeaders":[{"name","type","description"}],"missingHeaders"}]}]}
+ * </pre>
+ * Every key is always written, null when there is no value. A changed
+ * endpoint is written for each changed operation.
+ */
+public class JsonRender implements OutputRender {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	public String render(SwaggerDiff diff) {
+		StringBuilder sb = new StringBuilder();
+		try {
+			render(diff, sb);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return sb.toString();
+	}
+
+	public void render(SwaggerDiff diff, Appendable out) throws IOException {
+		render(diff, out instanceof Writer ? (Writer) out : new AppendableWriter(out));
+	}
+
+	/**
+	 * Writes the diff to the stream as UTF-8, without closing it
+	 */
+	public void renderUtf8(SwaggerDiff diff, OutputStream out) throws IOException {
+		render(diff, new OutputStreamWriter(out, UTF_8));
+	}
+
+	private void render(SwaggerDiff diff, Writer out) throws IOException {
+		final long start = System.nanoTime();
+		final JSONWriter writer = new JSONWriter(out);
+		try {
+			write(diff, writer);
+			writer.flush();
+		} catch (RuntimeException e) {
+			if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+			throw e;
+		}
+		if (null != diff.getListener()) {
+			diff.getListener().rendered("json", System.nanoTime() - start);
+		}
+	}
+
+	private void write(SwaggerDiff diff, JSONWriter writer) {
+		writer.startObject();
+		writer.writeKey("newEndpoints");
+		endpoints(writer, diff.getNewEndpoints());
+		writer.writeKey("missingEndpoints");
+		endpoints(writer, diff.getMissingEndpoints());
+		writer.writeKey("changedEndpoints");
+		writer.startArray();
+		if (null != diff.getChangedEndpoints()) {
+			for (ChangedEndpoint changedEndpoint : diff.getChangedEndpoints()) {
+				for (Entry<HttpMethod, ChangedOperation> entry : changedEndpoint.getChangedOperations().entrySet()) {
+					changedOperation(writer, changedEndpoint, entry.getKey(), entry.getValue());
+				}
+			}
+		}
+		writer.endArray();
+		writer.endObject();
+	}
+
+	private void endpoints(JSONWriter writer, List<Endpoint> endpoints) {
+		writer.startArray();
+		if (null != endpoints) {
+			for (Endpoint endpoint : endpoints) {
+				writer.startObject();
+				entry(writer, "method", null == endpoint.getMethod() ? null : endpoint.getMethod().toString());
+				entry(writer, "pathUrl", endpoint.getPathUrl());
+				entry(writer, "summary", endpoint.getSummary());
+				writer.endObject();
+			}
+		}
+		writer.endArray();
+	}
+
+	private void changedOperation(JSONWriter writer, ChangedEndpoint changedEndpoint,
+								  HttpMethod method, ChangedOperation changedOperation) {
+		writer.startObject();
+		entry(writer, "method", method.toString());
+		entry(writer, "pathUrl", changedEndpoint.getPathUrl());
+		entry(writer, "summary", changedOperation.getSummary());
+		entry(writer, "truncated", changedEndpoint.isTruncated());
+		writer.writeKey("addParameters");
+		parameters(writer, changedOperation.getAddParameters());
+		writer.writeKey("missingParameters");
+		parameters(writer, changedOperation.getMissingParameters());
+		writer.writeKey("changedParameters");
+		writer.startArray();
+		for (ChangedParameter changedParameter : changedOperation.getChangedParameter()) {
+			final Parameter right = changedParameter.getRightParameter();
+			writer.startObject();
+			entry(writer, "name", right.getName());
+			entry(writer, "in", right.getIn());
+			entry(writer, "changeRequired", changedParameter.isChangeRequired());
+			entry(writer, "changeDescription", changedParameter.isChangeDescription());
+			entry(writer, "required", right.getRequired());
+			entry(writer, "description", right.getDescription());
+			writer.writeKey("addProps");
+			properties(writer, changedParameter.getIncreased());
+			writer.writeKey("missingProps");
+			properties(writer, changedParameter.getMissing());
+			writer.endObject();
+		}
+		writer.endArray();
+		writer.writeKey("addProps");
+		properties(writer, changedOperation.getAddProps());
+		writer.writeKey("missingProps");
+		properties(writer, changedOperation.getMissingProps());
+		writer.writeKey("addResponses");
+		responses(writer, changedOperation.getAddResponses());
+		writer.writeKey("missingResponses");
+		responses(writer, changedOperation.getMissingResponses());
+		writer.writeKey("changedResponses");
+		writer.startArray();
+		for (Entry<String, ChangedResponse> entry : changedOperation.getChangedResponses().entrySet()) {
+			writer.startObject();
+			entry(writer, "code", entry.getKey());
+			writer.writeKey("addProps");
+			properties(writer, entry.getValue().getAddProps());
+			writer.writeKey("missingProps");
+			properties(writer, entry.getValue().getMissingProps());
+			writer.writeKey("addHeaders");
+			headers(writer, entry.getValue().getAddHeaders());
+			writer.writeKey("missingHeaders");
+			headers(writer, entry.getValue().getMissingHeaders());
+			writer.endObject();
+		}
+		writer.endArray();
+		writer.endObject();
+	}
+
+	private void parameters(JSONWriter writer, List<Parameter> parameters) {
+		writer.startArray();
+		for (Parameter parameter : parameters) {
+			writer.startObject();
+			entry(writer, "name", parameter.getName());
+			entry(writer, "in", parameter.getIn());
+			entry(writer, "required", parameter.getRequired());
+			entry(writer, "description", parameter.getDescription());
+			writer.endObject();
+		}
+		writer.endArray();
+	}
+
+	private void properties(JSONWriter writer, List<ElProperty> properties) {
+		writer.startArray();
+		for (ElProperty prop : properties) {
+			final Property property = prop.getProperty();
+			writer.startObject();
+			entry(writer, "el", prop.getEl());
+			entry(writer, "type", property.getType());
+			entry(writer, "description", property.getDescription());
+			writer.endObject();
+		}
+		writer.endArray();
+	}
+
+	private void responses(JSONWriter writer, Map<String, Response> responses) {
+		writer.startArray();
+		for (Entry<String, Response> entry : responses.entrySet()) {
+			writer.startObject();
+			entry(writer, "code", entry.getKey());
+			entry(writer, "description", entry.getValue().getDescription());
+			writer.endObject();
+		}
+		writer.endArray();
+	}
+
+	private void headers(JSONWriter writer, Map<String, Property> headers) {
+		writer.startArray();
+		for (Entry<String, Property> entry : headers.entrySet()) {
+			writer.startObject();
+			entry(writer, "name", entry.getKey());
+			entry(writer, "type", entry.getValue().getType());
+			entry(writer, "description", entry.getValue().getDescription());
+			writer.endObject();
+		}
+		writer.endArray();
+	}
+
+	private static void entry(JSONWriter writer, String key, Object value) {
+		writer.writeKey(key);
+		writer.writeValue(value);
+	}
+
+	/**
+	 * Writer over an Appendable, so reports can be rendered to any sink
+	 */
+	private static final class AppendableWriter extends Writer {
+
+		private final Appendable out;
+
+		AppendableWriter(Appendable out) {
+			this.out = out;
+		}
+
+		@Override
+		public void write(char[] cbuf, int off, int len) throws IOException {
+			out.append(CharBuffer.wrap(cbuf, off, len));
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
+}
@@ -3,9 +3,11 @@ package com.deepoove.swagger.diff.output;
 import com.deepoove.swagger.diff.SwaggerDiff;
 import com.deepoove.swagger.diff.model.*;
 import io.swagger.models.HttpMethod;
+import io.swagger.models.Response;
 import io.swagger.models.parameters.Parameter;
 import io.swagger.models.properties.Property;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -20,37 +22,46 @@ public class MarkdownRender implements OutputRender {
 	final String HR = "---\n";
 
 	public String render(SwaggerDiff diff) {
+		StringBuilder sb = new StringBuilder();
+		try {
+			render(diff, sb);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return sb.toString();
+	}
+
+	public void render(SwaggerDiff diff, Appendable out) throws IOException {
+		final long start = System.nanoTime();
+		write(diff, out);
+		if (null != diff.getListener()) {
+			diff.getListener().rendered("markdown", System.nanoTime() - start);
+		}
+	}
+
+	private void write(SwaggerDiff diff, Appendable out) throws IOException {
+		out.append(H3).append("What's New").append("\n").append(HR);
 		List<Endpoint> newEndpoints = diff.getNewEndpoints();
-		String ol_newEndpoint = ol_newEndpoint(newEndpoints);
+		ol_newEndpoint(out, newEndpoints);
 
+		out.append("\n").append(H3).append("What's Deprecated").append("\n")
+				.append(HR);
 		List<Endpoint> missingEndpoints = diff.getMissingEndpoints();
-		String ol_missingEndpoint = ol_missingEndpoint(missingEndpoints);
+		ol_missingEndpoint(out, missingEndpoints);
 
+		out.append("\n").append(H3).append("What's Changed").append("\n")
+				.append(HR);
 		List<ChangedEndpoint> changedEndpoints = diff.getChangedEndpoints();
-		String ol_changed = ol_changed(changedEndpoints);
-
-		return renderMarkdown(ol_newEndpoint, ol_missingEndpoint, ol_changed);
-	}
-
-	private String renderMarkdown(String ol_new, String ol_miss, String ol_changed) {
-		StringBuffer sb = new StringBuffer();
-		sb.append(H3).append("What's New").append("\n").append(HR)
-				.append(ol_new).append("\n").append(H3)
-				.append("What's Deprecated").append("\n").append(HR)
-				.append(ol_miss).append("\n").append(H3)
-				.append("What's Changed").append("\n").append(HR)
-				.append(ol_changed);
-		return sb.toString();
+		ol_changed(out, changedEndpoints);
 	}
 
-	private String ol_newEndpoint(List<Endpoint> endpoints) {
-		if (null == endpoints) return "";
-		StringBuffer sb = new StringBuffer();
+	private void ol_newEndpoint(Appendable out, List<Endpoint> endpoints)
+			throws IOException {
+		if (null == endpoints) return;
 		for (Endpoint endpoint : endpoints) {
-			sb.append(li_newEndpoint(endpoint.getMethod().toString(),
+			out.append(li_newEndpoint(endpoint.getMethod().toString(),
 					endpoint.getPathUrl(), endpoint.getSummary()));
 		}
-		return sb.toString();
 	}
 
 	private String li_newEndpoint(String method, String path, String desc) {
@@ -60,19 +71,18 @@ public class MarkdownRender implements OutputRender {
 		return sb.toString();
 	}
 
-	private String ol_missingEndpoint(List<Endpoint> endpoints) {
-		if (null == endpoints) return "";
-		StringBuffer sb = new StringBuffer();
+	private void ol_missingEndpoint(Appendable out, List<Endpoint> endpoints)
+			throws IOException {
+		if (null == endpoints) return;
 		for (Endpoint endpoint : endpoints) {
-			sb.append(li_newEndpoint(endpoint.getMethod().toString(),
+			out.append(li_newEndpoint(endpoint.getMethod().toString(),
 					endpoint.getPathUrl(), endpoint.getSummary()));
 		}
-		return sb.toString();
 	}
 
-	private String ol_changed(List<ChangedEndpoint> changedEndpoints) {
-		if (null == changedEndpoints) return "";
-		StringBuffer sb = new StringBuffer();
+	private void ol_changed(Appendable out,
+							List<ChangedEndpoint> changedEndpoints) throws IOException {
+		if (null == changedEndpoints) return;
 		for (ChangedEndpoint changedEndpoint : changedEndpoints) {
 			String pathUrl = changedEndpoint.getPathUrl();
 			Map<HttpMethod, ChangedOperation> changedOperations = changedEndpoint
@@ -92,12 +102,15 @@ public class MarkdownRender implements OutputRender {
 					ul_detail.append(PRE_LI).append("返回类型")
 							.append(ul_response(changedOperation));
 				}
-				sb.append(LI).append(CODE).append(method).append(CODE)
+				if (changedOperation.isDiffResponse()) {
+					ul_detail.append(PRE_LI).append("响应")
+							.append(ul_responseCode(changedOperation));
+				}
+				out.append(LI).append(CODE).append(method).append(CODE)
 						.append(" " + pathUrl).append(" " + desc + "  \n")
 						.append(ul_detail);
 			}
 		}
-		return sb.toString();
 	}
 
 	private String ul_response(ChangedOperation changedOperation) {
@@ -114,19 +127,66 @@ public class MarkdownRender implements OutputRender {
 		return sb.toString();
 	}
 
+	private String ul_responseCode(ChangedOperation changedOperation) {
+		StringBuffer sb = new StringBuffer("\n\n");
+		for (Entry<String, Response> entry : changedOperation.getAddResponses().entrySet()) {
+			sb.append(PRE_LI).append(PRE_CODE).append("Add ").append(entry.getKey())
+					.append(null == entry.getValue().getDescription() ? ""
+							: (" //" + entry.getValue().getDescription()))
+					.append("\n");
+		}
+		for (Entry<String, ChangedResponse> entry : changedOperation.getChangedResponses().entrySet()) {
+			String code = entry.getKey();
+			ChangedResponse changedResponse = entry.getValue();
+			if (!ChangedOperation.RETURN_TYPE_CODE.equals(code)) {
+				for (ElProperty prop : changedResponse.getAddProps()) {
+					sb.append(PRE_LI).append(PRE_CODE)
+							.append(li_add(code + " " + prop.getEl(), prop.getProperty()) + "\n");
+				}
+			}
+			for (Entry<String, Property> header : changedResponse.getAddHeaders().entrySet()) {
+				sb.append(PRE_LI).append(PRE_CODE)
+						.append(li_add(code + " header " + header.getKey(), header.getValue()) + "\n");
+			}
+			if (!ChangedOperation.RETURN_TYPE_CODE.equals(code)) {
+				for (ElProperty prop : changedResponse.getMissingProps()) {
+					sb.append(PRE_LI).append(PRE_CODE)
+							.append(li_missing(code + " " + prop.getEl(), prop.getProperty()) + "\n");
+				}
+			}
+			for (Entry<String, Property> header : changedResponse.getMissingHeaders().entrySet()) {
+				sb.append(PRE_LI).append(PRE_CODE)
+						.append(li_missing(code + " header " + header.getKey(), header.getValue()) + "\n");
+			}
+		}
+		for (Entry<String, Response> entry : changedOperation.getMissingResponses().entrySet()) {
+			sb.append(PRE_LI).append(PRE_CODE).append("Delete ").append(entry.getKey())
+					.append(null == entry.getValue().getDescription() ? ""
+							: (" //" + entry.getValue().getDescription()))
+					.append("\n");
+		}
+		return sb.toString();
+	}
+
 	private String li_missingProp(ElProperty prop) {
-		Property property = prop.getProperty();
+		return li_missing(prop.getEl(), prop.getProperty());
+	}
+
+	private String li_addProp(ElProperty prop) {
+		return li_add(prop.getEl(), prop.getProperty());
+	}
+
+	private String li_missing(String el, Property property) {
 		StringBuffer sb = new StringBuffer("");
-		sb.append("Delete ").append(prop.getEl())
+		sb.append("Delete ").append(el)
 				.append(null == property.getDescription() ? ""
 						: (" //" + property.getDescription()));
 		return sb.toString();
 	}
 
-	private String li_addProp(ElProperty prop) {
-		Property property = prop.getProperty();
+	private String li_add(String el, Property property) {
 		StringBuffer sb = new StringBuffer("");
-		sb.append("Add ").append(prop.getEl())
+		sb.append("Add ").append(el)
 				.append(null == property.getDescription() ? ""
 						: (" //" + property.getDescription()));
 		return sb.toString();
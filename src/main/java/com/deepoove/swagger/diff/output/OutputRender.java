@@ -2,6 +2,14 @@ package com.deepoove.swagger.diff.output;
 
 import com.deepoove.swagger.diff.SwaggerDiff;
 
+import java.io.IOException;
+
 public interface OutputRender {
 	String render(SwaggerDiff diff);
+
+	/**
+	 * Writes the rendered diff to the given sink one endpoint at a time,
+	 * without holding the whole report in memory
+	 */
+	void render(SwaggerDiff diff, Appendable out) throws IOException;
 }
@@ -0,0 +1,199 @@
+package com.deepoove.swagger.diff.spec;
+
+import com.google.common.base.Charsets;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader.InvalidCacheLoadException;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.swagger.models.Model;
+import io.swagger.models.Operation;
+import io.swagger.models.Path;
+import io.swagger.models.Swagger;
+import io.swagger.models.auth.AuthorizationValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * {@link SpecCache} keeping the least recently used specs in memory, bounded
+ * either by their number or by their total weight.
+ * <p>
+ * Specs are cached under their location, a digest of the auths they were
+ * read with, and a validator telling whether the content of the location
+ * changed: the modification time and length of files
+ * and resources, the ETag or Last-Modified header of a HEAD request for http
+ * locations. Locations without a validator are never cached.
+ */
+public class GuavaSpecCache implements SpecCache {
+
+	private static Logger logger = LoggerFactory.getLogger(GuavaSpecCache.class);
+
+	private final Cache<String, Swagger> cache;
+
+	private GuavaSpecCache(Cache<String, Swagger> cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * Cache keeping at most the given number of specs
+	 */
+	public static GuavaSpecCache maximumSize(long maximumSize) {
+		return new GuavaSpecCache(CacheBuilder.newBuilder()
+				.maximumSize(maximumSize)
+				.recordStats()
+				.<String, Swagger>build());
+	}
+
+	/**
+	 * Cache keeping specs up to the given total weight, see {@link #weigh(Swagger)}
+	 */
+	public static GuavaSpecCache maximumWeight(long maximumWeight) {
+		return new GuavaSpecCache(CacheBuilder.newBuilder()
+				.maximumWeight(maximumWeight)
+				.weigher(new Weigher<String, Swagger>() {
+					public int weigh(String key, Swagger swagger) {
+						return GuavaSpecCache.weigh(swagger);
+					}
+				})
+				.recordStats()
+				.<String, Swagger>build());
+	}
+
+	public Swagger get(String location, List<AuthorizationValue> auths, String variant, Callable<Swagger> loader) {
+		final String validator = validator(location, auths);
+		try {
+			if (null == validator) {
+				return loader.call();
+			}
+			return cache.get(variant + '\u0000' + location + '\u0000' + digest(auths) + '\u0000' + validator, loader);
+		} catch (InvalidCacheLoadException e) {
+			return null;
+		} catch (UncheckedExecutionException e) {
+			throw propagate(e.getCause());
+		} catch (ExecutionException e) {
+			throw propagate(e.getCause());
+		} catch (ExecutionError e) {
+			throw (Error) e.getCause();
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Number of cached specs
+	 */
+	public long size() {
+		return cache.size();
+	}
+
+	public CacheStats stats() {
+		return cache.stats();
+	}
+
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	/**
+	 * Estimated size of a parsed spec: one for the spec, and one for each of
+	 * its operations, parameters and definition properties
+	 */
+	public static int weigh(Swagger swagger) {
+		int weight = 1;
+		if (null != swagger.getPaths()) {
+			for (Path path : swagger.getPaths().values()) {
+				for (Operation operation : path.getOperations()) {
+					weight += 1 + (null == operation.getParameters() ? 0 : operation.getParameters().size());
+				}
+			}
+		}
+		if (null != swagger.getDefinitions()) {
+			for (Model model : swagger.getDefinitions().values()) {
+				weight += 1 + (null == model.getProperties() ? 0 : model.getProperties().size());
+			}
+		}
+		return weight;
+	}
+
+	/**
+	 * Digest of the auths, so that specs read with different auths are cached
+	 * apart without keeping the auths in the keys
+	 */
+	private static String digest(List<AuthorizationValue> auths) {
+		if (null == auths || auths.isEmpty()) return "";
+		final Hasher hasher = Hashing.sha256().newHasher();
+		for (AuthorizationValue auth : auths) {
+			hasher.putString(String.valueOf(auth.getType()), Charsets.UTF_8).putByte((byte) 0)
+					.putString(String.valueOf(auth.getKeyName()), Charsets.UTF_8).putByte((byte) 0)
+					.putString(String.valueOf(auth.getValue()), Charsets.UTF_8).putByte((byte) 0);
+		}
+		return hasher.hash().toString();
+	}
+
+	/**
+	 * Tells the content of a location apart from its earlier contents, or null
+	 * when it cannot
+	 */
+	protected String validator(String location, List<AuthorizationValue> auths) {
+		try {
+			final String lower = location.toLowerCase();
+			if (lower.startsWith("http:") || lower.startsWith("https:")) {
+				final HttpURLConnection connection = (HttpURLConnection) SpecReader.connect(location, auths);
+				connection.setRequestMethod("HEAD");
+				try {
+					if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) return null;
+					final String etag = connection.getHeaderField("ETag");
+					if (null != etag) return "etag:" + etag;
+					final long lastModified = connection.getLastModified();
+					return lastModified == 0 ? null : "modified:" + lastModified + ":" + connection.getContentLength();
+				} finally {
+					connection.disconnect();
+				}
+			}
+
+			final File file = new File(location);
+			if (file.isFile()) {
+				return "modified:" + file.lastModified() + ":" + file.length();
+			}
+			ClassLoader loader = Thread.currentThread().getContextClassLoader();
+			if (null == loader) loader = GuavaSpecCache.class.getClassLoader();
+			final URL resource = lower.startsWith("file:") ? new URL(location) : loader.getResource(location);
+			if (null == resource) return null;
+			final URLConnection connection = resource.openConnection();
+			connection.setUseCaches(false);
+			final long lastModified = connection.getLastModified();
+			final int length = connection.getContentLength();
+			connection.getInputStream().close();
+			return lastModified == 0 ? null : "modified:" + lastModified + ":" + length;
+		} catch (IOException e) {
+			logger.debug("cannot validate spec {}, it is not cached", location, e);
+			return null;
+		}
+	}
+
+	private static RuntimeException propagate(Throwable cause) {
+		if (cause instanceof RuntimeException) {
+			return (RuntimeException) cause;
+		}
+		if (cause instanceof Error) {
+			throw (Error) cause;
+		}
+		return new RuntimeException(cause);
+	}
+
+}
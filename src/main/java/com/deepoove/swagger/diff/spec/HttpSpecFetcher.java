@@ -0,0 +1,40 @@
+package com.deepoove.swagger.diff.spec;
+
+import io.swagger.models.auth.AuthorizationValue;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URLConnection;
+import java.util.List;
+
+/**
+ * {@link SpecFetcher} sending the validators as If-None-Match and
+ * If-Modified-Since headers, with the auths sent the way {@link SpecReader}
+ * sends them.
+ */
+public class HttpSpecFetcher implements SpecFetcher {
+
+	public Fetched fetch(String location, List<AuthorizationValue> auths, String etag, String lastModified) throws IOException {
+		final URLConnection urlConnection = SpecReader.connect(location, auths);
+		if (!(urlConnection instanceof HttpURLConnection)) {
+			throw new IOException("not an http location: " + location);
+		}
+		final HttpURLConnection connection = (HttpURLConnection) urlConnection;
+		connection.setUseCaches(false);
+		if (null != etag) connection.setRequestProperty("If-None-Match", etag);
+		if (null != lastModified) connection.setRequestProperty("If-Modified-Since", lastModified);
+
+		final int code = connection.getResponseCode();
+		if (code == HttpURLConnection.HTTP_NOT_MODIFIED && (null != etag || null != lastModified)) {
+			connection.disconnect();
+			return Fetched.notModified();
+		}
+		if (code != HttpURLConnection.HTTP_OK) {
+			connection.disconnect();
+			throw new IOException("cannot fetch " + location + ", status " + code);
+		}
+		return Fetched.modified(connection.getInputStream(), connection.getHeaderField("ETag"),
+				connection.getHeaderField("Last-Modified"));
+	}
+
+}
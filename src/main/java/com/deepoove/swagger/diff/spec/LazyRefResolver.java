@@ -0,0 +1,171 @@
+package com.deepoove.swagger.diff.spec;
+
+import com.deepoove.swagger.diff.compare.DiffContext;
+import com.deepoove.swagger.diff.compare.RefResolver;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.swagger.models.Model;
+import io.swagger.models.Response;
+import io.swagger.models.auth.AuthorizationValue;
+import io.swagger.models.parameters.Parameter;
+import io.swagger.util.Json;
+import io.swagger.util.Yaml;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolves refs to other files relative to the location of a spec, when a
+ * comparison first dereferences them.
+ * <p>
+ * Every file is loaded once, and every resolved model, parameter and response
+ * is kept. Refs inside a loaded file are made absolute, so the refs of what is
+ * resolved resolve against the file it comes from.
+ */
+public class LazyRefResolver implements RefResolver {
+
+	private static Logger logger = LoggerFactory.getLogger(LazyRefResolver.class);
+
+	private static final String DEFINITION_REF = "#/definitions/";
+
+	private final URL base;
+	private final ConcurrentMap<String, Model> models = new ConcurrentHashMap<String, Model>();
+	private final ConcurrentMap<String, Parameter> parameters = new ConcurrentHashMap<String, Parameter>();
+	private final ConcurrentMap<String, Response> responses = new ConcurrentHashMap<String, Response>();
+	private final LoadingCache<String, JsonNode> documents;
+
+	/**
+	 * @param location Location (File or Http) of the spec file the refs are relative to
+	 * @param auths    AuthorizationValues sent when fetching an URL, may be null
+	 */
+	public LazyRefResolver(String location, final List<AuthorizationValue> auths) {
+		this.base = locate(location);
+		this.documents = CacheBuilder.newBuilder().build(new CacheLoader<String, JsonNode>() {
+			@Override
+			public JsonNode load(String url) throws IOException {
+				return readDocument(url, auths);
+			}
+		});
+	}
+
+	public Model resolve(String ref) {
+		return resolve(ref, Model.class, models);
+	}
+
+	public Parameter resolveParameter(String ref) {
+		return resolve(ref, Parameter.class, parameters);
+	}
+
+	public Response resolveResponse(String ref) {
+		return resolve(ref, Response.class, responses);
+	}
+
+	private <T> T resolve(String ref, Class<T> type, ConcurrentMap<String, T> resolved) {
+		if (null == base || !DiffContext.isExternalRef(ref)) return null;
+		T value = resolved.get(ref);
+		if (null != value) return value;
+
+		final int hash = ref.indexOf('#');
+		final String pointer = hash < 0 ? "" : ref.substring(hash + 1);
+		try {
+			final URL url = new URL(base, hash < 0 ? ref : ref.substring(0, hash));
+			final JsonNode document = documents.getUnchecked(url.toString());
+			final JsonNode node = pointer.isEmpty() ? document : document.at(pointer);
+			if (node.isMissingNode()) return null;
+			value = Json.mapper().convertValue(absolute(node.deepCopy(), url), type);
+		} catch (MalformedURLException e) {
+			logger.warn("cannot resolve ref {}", ref, e);
+			return null;
+		} catch (UncheckedExecutionException e) {
+			logger.warn("cannot resolve ref {}", ref, e.getCause());
+			return null;
+		}
+		final T previous = resolved.putIfAbsent(ref, value);
+		return null == previous ? value : previous;
+	}
+
+	/**
+	 * Rewrites the refs of a node loaded from the given file as absolute refs
+	 */
+	private static JsonNode absolute(JsonNode node, URL url) throws MalformedURLException {
+		if (node.isObject()) {
+			final Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+			while (fields.hasNext()) {
+				final Map.Entry<String, JsonNode> field = fields.next();
+				if ("$ref".equals(field.getKey()) && field.getValue().isTextual()) {
+					((ObjectNode) node).set("$ref", TextNode.valueOf(absolute(field.getValue().asText(), url)));
+				} else {
+					absolute(field.getValue(), url);
+				}
+			}
+		} else if (node.isArray()) {
+			for (JsonNode element : node) {
+				absolute(element, url);
+			}
+		}
+		return node;
+	}
+
+	private static String absolute(String ref, URL url) throws MalformedURLException {
+		if (ref.startsWith("#")) {
+			return url + ref;
+		}
+		if (!DiffContext.isExternalRef(ref)) {
+			return url + DEFINITION_REF + ref;
+		}
+		final int hash = ref.indexOf('#');
+		return hash < 0 ? new URL(url, ref).toString()
+				: new URL(url, ref.substring(0, hash)) + ref.substring(hash);
+	}
+
+	private static JsonNode readDocument(String url, List<AuthorizationValue> auths) throws IOException {
+		final String lower = url.toLowerCase();
+		final InputStream in = new BufferedInputStream(lower.startsWith("http:") || lower.startsWith("https:")
+				? SpecReader.open(url, auths) : new URL(url).openStream());
+		try {
+			final boolean yaml = lower.endsWith(".yaml") || lower.endsWith(".yml") || !SpecReader.startsWithBrace(in);
+			return (yaml ? Yaml.mapper() : Json.mapper()).readTree(in);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * URL of a spec location, an http(s) URL, a file or a classpath resource
+	 */
+	private static URL locate(String location) {
+		try {
+			final String lower = location.toLowerCase();
+			if (lower.startsWith("http:") || lower.startsWith("https:") || lower.startsWith("file:")) {
+				return new URL(location);
+			}
+			final File file = new File(location);
+			if (file.isFile()) {
+				return file.toURI().toURL();
+			}
+		} catch (MalformedURLException e) {
+			logger.warn("cannot locate spec {}", location, e);
+			return null;
+		}
+		ClassLoader loader = Thread.currentThread().getContextClassLoader();
+		if (null == loader) loader = LazyRefResolver.class.getClassLoader();
+		return loader.getResource(location);
+	}
+
+}
@@ -0,0 +1,31 @@
+package com.deepoove.swagger.diff.spec;
+
+import io.swagger.models.Swagger;
+import io.swagger.models.auth.AuthorizationValue;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Keeps parsed specs between comparisons, so that specs compared again and
+ * again are not parsed each time. Cached specs are shared by every comparison
+ * getting them and must not be modified. Implementations must be safe to share
+ * between threads.
+ *
+ * @see GuavaSpecCache
+ */
+public interface SpecCache {
+
+	/**
+	 * Returns the spec read from a location, calling the loader unless a spec
+	 * read from the same content of the location is cached
+	 *
+	 * @param location Location (File or Http) of the spec file
+	 * @param auths    AuthorizationValues to be used reaching the location, may be null
+	 * @param variant  How the spec is read, specs read in different ways are cached apart
+	 * @param loader   Reads the spec, may return null when it cannot
+	 * @return The spec, or null when the loader returns null
+	 */
+	Swagger get(String location, List<AuthorizationValue> auths, String variant, Callable<Swagger> loader);
+
+}
@@ -0,0 +1,248 @@
+package com.deepoove.swagger.diff.spec;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingInputStream;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.Striped;
+import io.swagger.models.Swagger;
+import io.swagger.models.auth.AuthorizationValue;
+import io.swagger.parser.SwaggerParser;
+import io.swagger.parser.SwaggerResolver;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Directory keeping a copy of each remote v2.0 spec read, so that a spec is
+ * downloaded again only when it changed. Every read revalidates the copy with
+ * a conditional request, and the specs parsed from the most recently read
+ * copies are kept in memory and reused as long as their copy does not change.
+ * <p>
+ * Specs are kept under their location and auths. Reused specs are shared by
+ * every comparison getting them and must not be modified. Safe to share
+ * between threads, a location being fetched by one thread at a time.
+ * <p>
+ * Layout: {@code <key>.spec} with the content and {@code <key>.properties}
+ * with its validators and hash.
+ */
+public class SpecDownloads {
+
+	private static final String ETAG = "etag";
+	private static final String LAST_MODIFIED = "lastModified";
+	private static final String HASH = "hash";
+	private static final String LOCATION = "location";
+	private static final long PARSED_SPECS = 16;
+
+	private final File directory;
+	private final SpecFetcher fetcher;
+	private final Striped<Lock> locks = Striped.lock(64);
+	private final Cache<String, Parsed> parsed;
+
+	/**
+	 * Downloads keeping the parsed specs of the {@value #PARSED_SPECS} most recently read copies
+	 */
+	public SpecDownloads(File directory) {
+		this(directory, new HttpSpecFetcher());
+	}
+
+	public SpecDownloads(File directory, SpecFetcher fetcher) {
+		this(directory, fetcher, PARSED_SPECS);
+	}
+
+	/**
+	 * @param maximumParsed Parsed specs kept in memory, the least recently used
+	 *                      ones are parsed again from their copy
+	 */
+	public SpecDownloads(File directory, SpecFetcher fetcher, long maximumParsed) {
+		this.directory = directory;
+		this.fetcher = fetcher;
+		this.parsed = CacheBuilder.newBuilder().maximumSize(maximumParsed).<String, Parsed>build();
+	}
+
+	/**
+	 * Whether the location is remote, and so read through the downloads
+	 */
+	public static boolean isRemote(String location) {
+		final String lower = location.toLowerCase();
+		return lower.startsWith("http:") || lower.startsWith("https:");
+	}
+
+	/**
+	 * Reads a v2.0 spec from its downloaded copy, revalidated first
+	 *
+	 * @param location Location (Http) of the spec file
+	 * @param auths    AuthorizationValues to be used reaching the location, may be null
+	 * @param resolve  Whether refs to other files are resolved, relative to the location,
+	 *                 otherwise the spec is read as is by the {@link SpecReader}
+	 * @return The spec, or null when it cannot be parsed
+	 */
+	public Swagger read(String location, List<AuthorizationValue> auths, boolean resolve) throws IOException {
+		final String key = key(location, auths);
+		final Lock lock = locks.get(key);
+		lock.lock();
+		try {
+			final String hash = fetch(key, location, auths);
+			final String parsedKey = (resolve ? "" : "lazy:") + key;
+			final Parsed cached = parsed.getIfPresent(parsedKey);
+			if (null != cached && cached.hash.equals(hash)) {
+				return cached.swagger;
+			}
+			final Swagger swagger = parse(contentFile(key), location, auths, resolve);
+			if (null == swagger) {
+				parsed.invalidate(parsedKey);
+			} else {
+				parsed.put(parsedKey, new Parsed(hash, swagger));
+			}
+			return swagger;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Forgets the parsed specs, the downloaded copies are kept
+	 */
+	public void clearParsed() {
+		parsed.invalidateAll();
+	}
+
+	/**
+	 * Makes the copy of a location current
+	 *
+	 * @return The hash of the content of the copy
+	 */
+	private String fetch(String key, String location, List<AuthorizationValue> auths) throws IOException {
+		final File contentFile = contentFile(key);
+		final File metaFile = metaFile(key);
+		final Properties meta = new Properties();
+		if (contentFile.isFile() && metaFile.isFile()) {
+			final InputStream in = new FileInputStream(metaFile);
+			try {
+				meta.load(in);
+			} finally {
+				in.close();
+			}
+		}
+
+		final String hash = meta.getProperty(HASH);
+		final SpecFetcher.Fetched fetched = fetcher.fetch(location, auths,
+				null == hash ? null : meta.getProperty(ETAG), null == hash ? null : meta.getProperty(LAST_MODIFIED));
+		if (!fetched.isModified()) {
+			if (null == hash) throw new IOException("nothing downloaded yet from " + location);
+			return hash;
+		}
+
+		final String newHash;
+		final File temp = temp(contentFile);
+		try {
+			final HashingInputStream in = new HashingInputStream(Hashing.sha1(), fetched.getContent());
+			final OutputStream out = new FileOutputStream(temp);
+			try {
+				ByteStreams.copy(in, out);
+			} finally {
+				out.close();
+				in.close();
+			}
+			newHash = in.hash().toString();
+			rename(temp, contentFile);
+		} finally {
+			temp.delete();
+		}
+
+		final Properties newMeta = new Properties();
+		newMeta.setProperty(LOCATION, location);
+		newMeta.setProperty(HASH, newHash);
+		if (null != fetched.getEtag()) newMeta.setProperty(ETAG, fetched.getEtag());
+		if (null != fetched.getLastModified()) newMeta.setProperty(LAST_MODIFIED, fetched.getLastModified());
+		final File tempMeta = temp(metaFile);
+		try {
+			final OutputStream out = new FileOutputStream(tempMeta);
+			try {
+				newMeta.store(out, null);
+			} finally {
+				out.close();
+			}
+			rename(tempMeta, metaFile);
+		} finally {
+			tempMeta.delete();
+		}
+		return newHash;
+	}
+
+	/**
+	 * Parses a downloaded copy as if it were read from its location, so that
+	 * relative refs resolve against the location
+	 */
+	private static Swagger parse(File copy, String location, List<AuthorizationValue> auths, boolean resolve)
+			throws IOException {
+		if (!resolve) {
+			return SpecReader.read(copy);
+		}
+		final Swagger swagger = new SwaggerParser().read(copy.getAbsolutePath(), auths, false);
+		return null == swagger ? null : new SwaggerResolver(swagger, auths, location).resolve();
+	}
+
+	/**
+	 * Name of the files of a location, apart for each set of auths
+	 */
+	private static String key(String location, List<AuthorizationValue> auths) {
+		final StringBuilder sb = new StringBuilder(location);
+		if (null != auths) {
+			for (AuthorizationValue auth : auths) {
+				sb.append('\u0000').append(auth.getType())
+						.append('\u0000').append(auth.getKeyName())
+						.append('\u0000').append(auth.getValue());
+			}
+		}
+		return Hashing.sha1().hashUnencodedChars(sb).toString();
+	}
+
+	private File contentFile(String key) {
+		return new File(directory, key + ".spec");
+	}
+
+	private File metaFile(String key) {
+		return new File(directory, key + ".properties");
+	}
+
+	private File temp(File file) throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+			throw new IOException("cannot create directory " + directory);
+		}
+		return File.createTempFile(file.getName(), ".tmp", directory);
+	}
+
+	/**
+	 * Moves a written temporary file into place, so readers never see a partly
+	 * written file.
+	 */
+	private static void rename(File temp, File file) throws IOException {
+		if (!temp.renameTo(file)) {
+			file.delete();
+			if (!temp.renameTo(file)) {
+				throw new IOException("cannot write " + file);
+			}
+		}
+	}
+
+	private static final class Parsed {
+
+		private final String hash;
+		private final Swagger swagger;
+
+		Parsed(String hash, Swagger swagger) {
+			this.hash = hash;
+			this.swagger = swagger;
+		}
+	}
+
+}
@@ -0,0 +1,78 @@
+package com.deepoove.swagger.diff.spec;
+
+import io.swagger.models.auth.AuthorizationValue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Fetches the content of a remote spec location for {@link SpecDownloads},
+ * unless the copy already downloaded is still current. Implementations must be
+ * safe to share between threads.
+ *
+ * @see HttpSpecFetcher
+ */
+public interface SpecFetcher {
+
+	/**
+	 * Fetches a spec, conditionally when validators of a downloaded copy are given
+	 *
+	 * @param location     Location of the spec file
+	 * @param auths        AuthorizationValues to be used reaching the location, may be null
+	 * @param etag         ETag of the downloaded copy, or null
+	 * @param lastModified Last-Modified of the downloaded copy, or null
+	 * @return The new content, or {@link Fetched#notModified()} when the downloaded copy is current
+	 */
+	Fetched fetch(String location, List<AuthorizationValue> auths, String etag, String lastModified) throws IOException;
+
+	/**
+	 * What a fetch got: either nothing, the downloaded copy being current, or
+	 * the content with the validators to send next time
+	 */
+	class Fetched {
+
+		private static final Fetched NOT_MODIFIED = new Fetched(null, null, null);
+
+		private final InputStream content;
+		private final String etag;
+		private final String lastModified;
+
+		private Fetched(InputStream content, String etag, String lastModified) {
+			this.content = content;
+			this.etag = etag;
+			this.lastModified = lastModified;
+		}
+
+		public static Fetched notModified() {
+			return NOT_MODIFIED;
+		}
+
+		/**
+		 * @param content      The content, closed by the caller
+		 * @param etag         ETag of the content, or null
+		 * @param lastModified Last-Modified of the content, or null
+		 */
+		public static Fetched modified(InputStream content, String etag, String lastModified) {
+			if (null == content) throw new IllegalArgumentException("content must not be null");
+			return new Fetched(content, etag, lastModified);
+		}
+
+		public boolean isModified() {
+			return null != content;
+		}
+
+		public InputStream getContent() {
+			return content;
+		}
+
+		public String getEtag() {
+			return etag;
+		}
+
+		public String getLastModified() {
+			return lastModified;
+		}
+	}
+
+}
@@ -0,0 +1,310 @@
+package com.deepoove.swagger.diff.spec;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.swagger.models.Model;
+import io.swagger.models.Operation;
+import io.swagger.models.Path;
+import io.swagger.models.RefResponse;
+import io.swagger.models.Response;
+import io.swagger.models.Swagger;
+import io.swagger.models.auth.AuthorizationValue;
+import io.swagger.models.parameters.Parameter;
+import io.swagger.models.parameters.RefParameter;
+import io.swagger.models.refs.RefFormat;
+import io.swagger.util.Json;
+import io.swagger.util.Yaml;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads v2.0 swagger specs, JSON or YAML, token by token instead of through a
+ * tree of the whole document.
+ * <p>
+ * Only what the diff looks at is kept: the paths with the summary, parameters
+ * and responses of their operations, the definitions, and the parameters and
+ * responses shared by operations. Every operation and definition is read into
+ * a small tree of its own and converted right away, so the memory needed is
+ * bounded by the resulting models rather than by the size of the document.
+ * <p>
+ * Refs to definitions are left as they are, like {@code SwaggerParser} does
+ * for refs local to the spec. Refs to the shared parameters and responses are
+ * replaced by what they point to, as {@code SwaggerParser} resolves them too.
+ */
+public class SpecReader {
+
+	private static final Set<String> METHODS = new HashSet<String>(
+			Arrays.asList("get", "put", "post", "delete", "options", "patch", "head"));
+	private static final String[] OPERATION_FIELDS = {"summary", "parameters", "responses"};
+
+	private SpecReader() {
+	}
+
+	/**
+	 * Reads a spec from a location, an http(s) URL, a file or a classpath resource
+	 *
+	 * @param location Location (File or Http) of the spec file
+	 * @param auths    AuthorizationValues sent when fetching an URL, may be null
+	 */
+	public static Swagger read(String location, List<AuthorizationValue> auths) throws IOException {
+		final String lower = location.toLowerCase();
+		if (lower.startsWith("http:") || lower.startsWith("https:")) {
+			final InputStream in = open(location, auths);
+			try {
+				return read(in, format(lower));
+			} finally {
+				in.close();
+			}
+		}
+		final File file = new File(location);
+		if (file.isFile()) {
+			return read(file);
+		}
+
+		ClassLoader loader = Thread.currentThread().getContextClassLoader();
+		if (null == loader) loader = SpecReader.class.getClassLoader();
+		final InputStream in = loader.getResourceAsStream(location);
+		if (null == in) {
+			throw new FileNotFoundException(location);
+		}
+		try {
+			return read(in, format(lower));
+		} finally {
+			in.close();
+		}
+	}
+
+	public static Swagger read(File file) throws IOException {
+		final InputStream in = new FileInputStream(file);
+		try {
+			return read(in, format(file.getName().toLowerCase()));
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Reads a spec from a stream, telling JSON from YAML by its first character.
+	 * The stream is not closed.
+	 */
+	public static Swagger read(InputStream in) throws IOException {
+		return read(in, null);
+	}
+
+	private static Swagger read(InputStream in, Boolean yaml) throws IOException {
+		if (null == yaml) {
+			in = new BufferedInputStream(in);
+			yaml = !startsWithBrace(in);
+		}
+		final ObjectMapper mapper = yaml ? Yaml.mapper() : Json.mapper();
+		final JsonParser parser = mapper.getFactory().createParser(in);
+		try {
+			return read(parser, mapper);
+		} finally {
+			parser.close();
+		}
+	}
+
+	private static Swagger read(JsonParser parser, ObjectMapper mapper) throws IOException {
+		if (parser.nextToken() != JsonToken.START_OBJECT) {
+			throw new IOException("spec is not an object");
+		}
+		final Swagger swagger = new Swagger();
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			final String field = parser.getCurrentName();
+			parser.nextToken();
+			if ("paths".equals(field)) {
+				swagger.setPaths(readPaths(parser, mapper));
+			} else if ("definitions".equals(field)) {
+				swagger.setDefinitions(readSection(parser, mapper, Model.class));
+			} else if ("parameters".equals(field)) {
+				swagger.setParameters(readSection(parser, mapper, Parameter.class));
+			} else if ("responses".equals(field)) {
+				swagger.setResponses(readSection(parser, mapper, Response.class));
+			} else {
+				parser.skipChildren();
+			}
+		}
+		inlineRefs(swagger);
+		return swagger;
+	}
+
+	private static Map<String, Path> readPaths(JsonParser parser, ObjectMapper mapper) throws IOException {
+		final Map<String, Path> paths = new LinkedHashMap<String, Path>();
+		if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+			parser.skipChildren();
+			return paths;
+		}
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			final String pathUrl = parser.getCurrentName();
+			parser.nextToken();
+			final Path path = new Path();
+			if (parser.getCurrentToken() == JsonToken.START_OBJECT) {
+				while (parser.nextToken() == JsonToken.FIELD_NAME) {
+					final String method = parser.getCurrentName();
+					parser.nextToken();
+					if (METHODS.contains(method)) {
+						path.set(method, readOperation(parser, mapper));
+					} else {
+						parser.skipChildren();
+					}
+				}
+			} else {
+				parser.skipChildren();
+			}
+			paths.put(pathUrl, path);
+		}
+		return paths;
+	}
+
+	/**
+	 * Reads one operation, keeping its summary, parameters and responses
+	 */
+	private static Operation readOperation(JsonParser parser, ObjectMapper mapper) throws IOException {
+		final JsonNode node = mapper.readTree(parser);
+		final ObjectNode kept = Json.mapper().createObjectNode();
+		for (String field : OPERATION_FIELDS) {
+			if (node.has(field)) kept.set(field, node.get(field));
+		}
+		if (!kept.has("responses")) kept.putObject("responses");
+		return Json.mapper().convertValue(kept, Operation.class);
+	}
+
+	/**
+	 * Reads a map of named objects, the definitions or the shared parameters or
+	 * responses, one object at a time
+	 */
+	private static <T> Map<String, T> readSection(JsonParser parser, ObjectMapper mapper, Class<T> type)
+			throws IOException {
+		final Map<String, T> section = new LinkedHashMap<String, T>();
+		if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+			parser.skipChildren();
+			return section;
+		}
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			final String name = parser.getCurrentName();
+			parser.nextToken();
+			section.put(name, Json.mapper().convertValue(mapper.readTree(parser), type));
+		}
+		return section;
+	}
+
+	/**
+	 * Replaces the refs of paths and operations to the shared parameters and
+	 * responses of the spec by what they point to. The sections may come after
+	 * the paths, so this is done once the whole spec is read. Refs to other
+	 * files, and refs to nothing, are left as they are.
+	 */
+	static void inlineRefs(Swagger swagger) {
+		if (null == swagger.getPaths()) return;
+		for (Path path : swagger.getPaths().values()) {
+			if (null != path.getParameters()) {
+				path.setParameters(inline(swagger, path.getParameters()));
+			}
+			for (Operation operation : path.getOperations()) {
+				if (null != operation.getParameters()) {
+					operation.setParameters(inline(swagger, operation.getParameters()));
+				}
+				if (null != operation.getResponses()) {
+					for (Map.Entry<String, Response> response : operation.getResponses().entrySet()) {
+						response.setValue(inline(swagger, response.getValue()));
+					}
+				}
+			}
+		}
+	}
+
+	private static List<Parameter> inline(Swagger swagger, List<Parameter> parameters) {
+		final List<Parameter> inlined = new ArrayList<Parameter>(parameters.size());
+		for (Parameter parameter : parameters) {
+			inlined.add(inline(swagger, parameter));
+		}
+		return inlined;
+	}
+
+	private static Parameter inline(Swagger swagger, Parameter parameter) {
+		if (!(parameter instanceof RefParameter) || null == swagger.getParameters()) return parameter;
+		final RefParameter ref = (RefParameter) parameter;
+		if (ref.getRefFormat() != RefFormat.INTERNAL) return parameter;
+		final Parameter shared = swagger.getParameters().get(ref.getSimpleRef());
+		return null == shared ? parameter : shared;
+	}
+
+	private static Response inline(Swagger swagger, Response response) {
+		if (!(response instanceof RefResponse) || null == swagger.getResponses()) return response;
+		final RefResponse ref = (RefResponse) response;
+		if (ref.getRefFormat() != RefFormat.INTERNAL) return response;
+		final Response shared = swagger.getResponses().get(ref.getSimpleRef());
+		return null == shared ? response : shared;
+	}
+
+	static InputStream open(String location, List<AuthorizationValue> auths) throws IOException {
+		return connect(location, auths).getInputStream();
+	}
+
+	/**
+	 * Connection to an URL, with the query auths added to the URL and the header
+	 * auths set as request headers
+	 */
+	static URLConnection connect(String location, List<AuthorizationValue> auths) throws IOException {
+		final StringBuilder url = new StringBuilder(location);
+		if (null != auths) {
+			for (AuthorizationValue auth : auths) {
+				if ("query".equals(auth.getType())) {
+					url.append(url.indexOf("?") < 0 ? '?' : '&')
+							.append(URLEncoder.encode(auth.getKeyName(), "UTF-8")).append('=')
+							.append(URLEncoder.encode(auth.getValue(), "UTF-8"));
+				}
+			}
+		}
+		final URLConnection connection = new URL(url.toString()).openConnection();
+		if (null != auths) {
+			for (AuthorizationValue auth : auths) {
+				if ("header".equals(auth.getType())) {
+					connection.setRequestProperty(auth.getKeyName(), auth.getValue());
+				}
+			}
+		}
+		return connection;
+	}
+
+	/**
+	 * YAML when the name says so, otherwise unknown until the content is seen
+	 */
+	private static Boolean format(String name) {
+		return name.endsWith(".yaml") || name.endsWith(".yml") ? Boolean.TRUE : null;
+	}
+
+	static boolean startsWithBrace(InputStream in) throws IOException {
+		in.mark(1024);
+		try {
+			for (int i = 0; i < 1024; i++) {
+				final int c = in.read();
+				if (c < 0) return false;
+				if (!Character.isWhitespace(c) && c != 0xEF && c != 0xBB && c != 0xBF) return c == '{';
+			}
+			return false;
+		} finally {
+			in.reset();
+		}
+	}
+
+}
@@ -0,0 +1,260 @@
+package com.deepoove.swagger.diff.spec;
+
+import com.deepoove.swagger.diff.SwaggerDiff;
+import com.deepoove.swagger.diff.compare.DiffContext;
+import com.deepoove.swagger.diff.compare.Fingerprint;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.io.Files;
+import io.swagger.models.Model;
+import io.swagger.models.Path;
+import io.swagger.models.Swagger;
+import io.swagger.util.Json;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Directory keeping spec versions in a normalized form, so that a new spec can
+ * be compared against any stored version without parsing that version again.
+ * <p>
+ * Every version has an index with the fingerprint of its paths and definitions,
+ * and the parameters and responses shared by its operations. The JSON of each
+ * path and definition is kept once under its hash and shared by all versions
+ * having it. Comparing against a stored version only loads its paths whose
+ * hash differs from the new spec, and the definitions they reach.
+ * <p>
+ * Specs are normalized as {@code SwaggerParser} reads them: the refs of their
+ * paths and operations to the shared parameters and responses are replaced by
+ * what they point to. Refs to other files cannot be stored.
+ * <p>
+ * Layout: {@code versions/<version>.json} and {@code objects/<ab>/<hash>.json}.
+ */
+public class SpecStore {
+
+	private static final String VERSIONS = "versions";
+	private static final String OBJECTS = "objects";
+	private static final String SUFFIX = ".json";
+	private static final String DEFINITION_REF = "#/definitions/";
+
+	private final ObjectMapper mapper = Json.mapper();
+	private final File directory;
+
+	public SpecStore(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Stores a spec under a version, replacing what was stored under it. The
+	 * refs of the spec to its shared parameters and responses are replaced by
+	 * what they point to.
+	 *
+	 * @return The fingerprint of the spec
+	 */
+	public Fingerprint put(String version, Swagger swagger) throws IOException {
+		SpecReader.inlineRefs(swagger);
+		final Fingerprint fingerprint = Fingerprint.of(swagger);
+		if (null != swagger.getPaths()) {
+			for (Map.Entry<String, Path> entry : swagger.getPaths().entrySet()) {
+				putObject(entry.getKey(), fingerprint.getPathHash(entry.getKey()), entry.getValue());
+			}
+		}
+		if (null != swagger.getDefinitions()) {
+			for (Map.Entry<String, Model> entry : swagger.getDefinitions().entrySet()) {
+				putObject(entry.getKey(), fingerprint.getDefinitionHash(entry.getKey()), entry.getValue());
+			}
+		}
+
+		final ObjectNode index = mapper.createObjectNode();
+		index.set("paths", mapper.valueToTree(fingerprint.getPaths()));
+		index.set("definitions", mapper.valueToTree(fingerprint.getDefinitions()));
+		if (null != swagger.getParameters()) index.set("parameters", mapper.valueToTree(swagger.getParameters()));
+		if (null != swagger.getResponses()) index.set("responses", mapper.valueToTree(swagger.getResponses()));
+		write(versionFile(version), mapper.writeValueAsBytes(index));
+		return fingerprint;
+	}
+
+	public boolean contains(String version) {
+		return versionFile(version).isFile();
+	}
+
+	/**
+	 * Stored versions, in no particular order
+	 */
+	public List<String> versions() {
+		final String[] names = new File(directory, VERSIONS).list();
+		if (null == names) return Collections.emptyList();
+		final List<String> versions = new ArrayList<String>(names.length);
+		for (String name : names) {
+			if (name.endsWith(SUFFIX)) versions.add(name.substring(0, name.length() - SUFFIX.length()));
+		}
+		return versions;
+	}
+
+	/**
+	 * Reads the fingerprint of a stored version, without loading any of its paths
+	 */
+	public Fingerprint fingerprint(String version) throws IOException {
+		return fingerprint(readIndex(version));
+	}
+
+	private JsonNode readIndex(String version) throws IOException {
+		final File file = versionFile(version);
+		if (!file.isFile()) {
+			throw new FileNotFoundException("no spec stored for version " + version);
+		}
+		return mapper.readTree(file);
+	}
+
+	private static Fingerprint fingerprint(JsonNode index) {
+		return new Fingerprint(hashes(index.get("paths")), hashes(index.get("definitions")));
+	}
+
+	/**
+	 * Loads the part of a stored version that differs from the given fingerprint.
+	 * Paths having the same hash in both are left empty, and only the definitions
+	 * reached by the loaded paths are loaded.
+	 *
+	 * @param version The stored version
+	 * @param against Fingerprint of the spec the version will be compared with, or
+	 *                null to load the whole version
+	 */
+	public Swagger load(String version, Fingerprint against) throws IOException {
+		final JsonNode index = readIndex(version);
+		return load(index, fingerprint(index), against);
+	}
+
+	private Swagger load(JsonNode index, Fingerprint stored, Fingerprint against) throws IOException {
+		final ObjectNode spec = mapper.createObjectNode();
+		spec.put("swagger", "2.0");
+		if (index.has("parameters")) spec.set("parameters", index.get("parameters"));
+		if (index.has("responses")) spec.set("responses", index.get("responses"));
+
+		final Deque<String> refs = new ArrayDeque<String>();
+		final ObjectNode paths = spec.putObject("paths");
+		for (Map.Entry<String, String> entry : stored.getPaths().entrySet()) {
+			final String pathUrl = entry.getKey();
+			if (null != against && Fingerprint.same(entry.getValue(), against.getPathHash(pathUrl))) {
+				paths.putObject(pathUrl);
+			} else {
+				paths.set(pathUrl, readObject(entry.getValue(), refs));
+			}
+		}
+
+		if (null == against) {
+			refs.addAll(stored.getDefinitions().keySet());
+		}
+		final ObjectNode definitions = spec.putObject("definitions");
+		final Set<String> loaded = new HashSet<String>();
+		while (!refs.isEmpty()) {
+			final String name = refs.pop();
+			final String hash = stored.getDefinitionHash(name);
+			if (null == hash || !loaded.add(name)) continue;
+			definitions.set(name, readObject(hash, refs));
+		}
+
+		return mapper.convertValue(spec, Swagger.class);
+	}
+
+	/**
+	 * Compares a stored version with a new spec, loading only what differs. The
+	 * new spec is normalized as the stored ones are.
+	 */
+	public SwaggerDiff compare(String version, Swagger newSpec) throws IOException {
+		SpecReader.inlineRefs(newSpec);
+		final Fingerprint newFingerprint = Fingerprint.of(newSpec);
+		final JsonNode index = readIndex(version);
+		final Fingerprint stored = fingerprint(index);
+		final Swagger oldSpec = load(index, stored, newFingerprint);
+		return SwaggerDiff.compare(oldSpec, stored, newSpec, newFingerprint);
+	}
+
+	private void putObject(String name, String hash, Object value) throws IOException {
+		if (null == hash) {
+			throw new IOException("cannot store " + name + ", it reaches a ref to another file"
+					+ " and refs to other files cannot be stored");
+		}
+		final File file = objectFile(hash);
+		if (!file.isFile()) {
+			write(file, mapper.writeValueAsBytes(value));
+		}
+	}
+
+	/**
+	 * Reads a stored path or definition, queueing the definitions it refers to
+	 */
+	private JsonNode readObject(String hash, Deque<String> refs) throws IOException {
+		final File file = objectFile(hash);
+		if (!file.isFile()) {
+			throw new FileNotFoundException("missing stored object " + hash);
+		}
+		final JsonNode node = mapper.readTree(file);
+		for (String ref : node.findValuesAsText("$ref")) {
+			if (ref.startsWith(DEFINITION_REF)) {
+				refs.add(ref.substring(DEFINITION_REF.length()));
+			} else if (!DiffContext.isExternalRef(ref)) {
+				refs.add(ref);
+			}
+		}
+		return node;
+	}
+
+	private static Map<String, String> hashes(JsonNode node) {
+		final Map<String, String> hashes = new LinkedHashMap<String, String>();
+		if (null == node) return hashes;
+		final Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+		while (fields.hasNext()) {
+			final Map.Entry<String, JsonNode> field = fields.next();
+			hashes.put(field.getKey(), field.getValue().asText());
+		}
+		return hashes;
+	}
+
+	private File versionFile(String version) {
+		if (null == version || version.isEmpty() || version.startsWith(".")
+				|| version.indexOf('/') >= 0 || version.indexOf('\\') >= 0) {
+			throw new IllegalArgumentException("invalid version name: " + version);
+		}
+		return new File(new File(directory, VERSIONS), version + SUFFIX);
+	}
+
+	private File objectFile(String hash) {
+		return new File(new File(new File(directory, OBJECTS), hash.substring(0, 2)), hash + SUFFIX);
+	}
+
+	/**
+	 * Writes through a temporary file renamed into place, so readers never see
+	 * a partly written file.
+	 */
+	private static void write(File file, byte[] content) throws IOException {
+		final File parent = file.getParentFile();
+		if (!parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()) {
+			throw new IOException("cannot create directory " + parent);
+		}
+		final File temp = File.createTempFile(file.getName(), ".tmp", parent);
+		try {
+			Files.write(content, temp);
+			if (!temp.renameTo(file)) {
+				file.delete();
+				if (!temp.renameTo(file)) {
+					throw new IOException("cannot write " + file);
+				}
+			}
+		} finally {
+			temp.delete();
+		}
+	}
+
+}
@@ -0,0 +1,120 @@
+package com.deepoove.swagger.test;
+
+import com.deepoove.swagger.diff.SwaggerDiff;
+import com.deepoove.swagger.diff.compare.DependencyGraph;
+import com.deepoove.swagger.diff.compare.Fingerprint;
+import io.swagger.models.ModelImpl;
+import io.swagger.models.Operation;
+import io.swagger.models.Path;
+import io.swagger.models.Response;
+import io.swagger.models.Swagger;
+import io.swagger.models.properties.RefProperty;
+import io.swagger.models.properties.StringProperty;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+public class FingerprintTest {
+
+	@Test
+	public void testNestedDefinitionChange() {
+		Fingerprint left = Fingerprint.of(spec("name"));
+		Fingerprint right = Fingerprint.of(spec("title"));
+		Fingerprint same = Fingerprint.of(spec("name"));
+
+		Assert.assertEquals(left.getPaths(), same.getPaths());
+		Assert.assertEquals(left.getDefinitions(), same.getDefinitions());
+
+		Assert.assertFalse(left.getDefinitionHash("Category").equals(right.getDefinitionHash("Category")));
+		Assert.assertFalse(left.getDefinitionHash("Pet").equals(right.getDefinitionHash("Pet")));
+		Assert.assertFalse(left.getPathHash("/pet").equals(right.getPathHash("/pet")));
+		Assert.assertEquals(left.getDefinitionHash("Tag"), right.getDefinitionHash("Tag"));
+		Assert.assertEquals(left.getPathHash("/tag"), right.getPathHash("/tag"));
+	}
+
+	@Test
+	public void testChangedOperations() {
+		Swagger left = spec("name");
+		Swagger right = spec("title");
+		right.getPath("/tag").post(new Operation().summary("add tag"));
+
+		DependencyGraph leftGraph = Fingerprint.of(left).getGraph();
+		DependencyGraph rightGraph = Fingerprint.of(right).getGraph();
+
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("Category", "Pet")),
+				DependencyGraph.changedDefinitions(leftGraph, rightGraph));
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("get /pet", "post /tag")),
+				DependencyGraph.changedOperations(leftGraph, rightGraph));
+		Assert.assertTrue(DependencyGraph.changedOperations(leftGraph, Fingerprint.of(spec("name")).getGraph()).isEmpty());
+	}
+
+	@Test
+	public void testLongChain() {
+		Fingerprint left = Fingerprint.of(chain(20000, "name"));
+		Fingerprint same = Fingerprint.of(chain(20000, "name"));
+		Fingerprint right = Fingerprint.of(chain(20000, "title"));
+
+		Assert.assertEquals(left.getDefinitions(), same.getDefinitions());
+		Assert.assertEquals(left.getPaths(), same.getPaths());
+		Assert.assertFalse(left.getDefinitionHash("D0").equals(right.getDefinitionHash("D0")));
+		Assert.assertFalse(left.getPathHash("/head").equals(right.getPathHash("/head")));
+		Assert.assertEquals(left.getPathHash("/leaf"), right.getPathHash("/leaf"));
+	}
+
+	@Test
+	public void testMatchingPathIsSkipped() {
+		Swagger oldSpec = spec("name");
+		Swagger newSpec = spec("title");
+		Fingerprint oldFingerprint = Fingerprint.of(oldSpec);
+		Fingerprint newFingerprint = Fingerprint.of(newSpec);
+		Assert.assertEquals(oldFingerprint.getPathHash("/tag"), newFingerprint.getPathHash("/tag"));
+
+		// the old /tag is emptied: compared, its operation would be reported as new
+		oldSpec.path("/tag", new Path());
+		SwaggerDiff diff = SwaggerDiff.compare(
+				oldSpec, new Fingerprint(oldFingerprint.getPaths(), oldFingerprint.getDefinitions()),
+				newSpec, new Fingerprint(newFingerprint.getPaths(), newFingerprint.getDefinitions()));
+		Assert.assertTrue(diff.getNewEndpoints().isEmpty());
+		Assert.assertEquals(1, diff.getChangedEndpoints().size());
+		Assert.assertEquals("/pet", diff.getChangedEndpoints().get(0).getPathUrl());
+
+		SwaggerDiff compared = SwaggerDiff.compare(oldSpec, newSpec);
+		Assert.assertEquals("/tag", compared.getNewEndpoints().get(0).getPathUrl());
+	}
+
+	/**
+	 * Definitions D0 to Dn-1, each referring to the next, the last one having
+	 * the given property
+	 */
+	private static Swagger chain(int length, String leafProperty) {
+		Swagger swagger = new Swagger()
+				.path("/head", new Path().get(new Operation()
+						.response(200, new Response().schema(new RefProperty("D0")))))
+				.path("/leaf", new Path().get(new Operation()
+						.response(200, new Response().schema(new RefProperty("Leaf")))));
+		for (int i = 0; i < length - 1; i++) {
+			swagger.model("D" + i, new ModelImpl().property("next", new RefProperty("D" + (i + 1))));
+		}
+		swagger.model("D" + (length - 1), new ModelImpl().property(leafProperty, new StringProperty()));
+		swagger.model("Leaf", new ModelImpl().property("name", new StringProperty()));
+		return swagger;
+	}
+
+	private static Swagger spec(String categoryProperty) {
+		return new Swagger()
+				.path("/pet", new Path().get(new Operation()
+						.response(200, new Response().schema(new RefProperty("Pet")))))
+				.path("/tag", new Path().get(new Operation()
+						.response(200, new Response().schema(new RefProperty("Tag")))))
+				.model("Pet", new ModelImpl()
+						.property("id", new StringProperty())
+						.property("category", new RefProperty("Category"))
+						.property("self", new RefProperty("Pet")))
+				.model("Category", new ModelImpl()
+						.property(categoryProperty, new StringProperty()))
+				.model("Tag", new ModelImpl()
+						.property("name", new StringProperty()));
+	}
+}
@@ -0,0 +1,93 @@
+package com.deepoove.swagger.test;
+
+import com.deepoove.swagger.diff.CompareOptions;
+import com.deepoove.swagger.diff.SwaggerDiff;
+import com.deepoove.swagger.diff.model.ChangedOperation;
+import com.deepoove.swagger.diff.output.MarkdownRender;
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import io.swagger.models.HttpMethod;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+public class LazyResolveTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testSameDiffAsEagerResolve() {
+		SwaggerDiff eager = SwaggerDiff.compare("petstore_v1.json", "petstore_v2.json", CompareOptions.v2());
+		SwaggerDiff lazy = SwaggerDiff.compare("petstore_v1.json", "petstore_v2.json", CompareOptions.v2().lazyResolve(true));
+		Assert.assertEquals(new MarkdownRender().render(eager), new MarkdownRender().render(lazy));
+	}
+
+	@Test
+	public void testSharedParameterAndResponseRefs() {
+		SwaggerDiff eager = SwaggerDiff.compare("shared_refs_v1.json", "shared_refs_v2.json", CompareOptions.v2());
+		SwaggerDiff lazy = SwaggerDiff.compare("shared_refs_v1.json", "shared_refs_v2.json", CompareOptions.v2().lazyResolve(true));
+		Assert.assertEquals(new MarkdownRender().render(eager), new MarkdownRender().render(lazy));
+		Assert.assertEquals(2, lazy.getChangedEndpoints().size());
+	}
+
+	@Test
+	public void testLazyResolveOfRelativeParameterAndResponseRefs() throws IOException {
+		String oldSpec = writeShared("old", false, "{}");
+		String newSpec = writeShared("new", true, "{\"X-Trace\":{\"type\":\"string\"}}");
+
+		SwaggerDiff lazy = SwaggerDiff.compare(oldSpec, newSpec, CompareOptions.v2().lazyResolve(true));
+
+		ChangedOperation operation = lazy.getChangedEndpoints().get(0).getChangedOperations().get(HttpMethod.GET);
+		Assert.assertTrue(operation.getAddParameters().isEmpty());
+		Assert.assertEquals("limit", operation.getChangedParameter().get(0).getRightParameter().getName());
+		Assert.assertTrue(operation.getChangedParameter().get(0).isChangeRequired());
+		Assert.assertTrue(operation.getChangedResponses().get("400").getAddHeaders().containsKey("X-Trace"));
+	}
+
+	@Test
+	public void testLazyResolveOfRelativeRefs() throws IOException {
+		String oldSpec = write("old", "id");
+		String newSpec = write("new", "code");
+
+		SwaggerDiff lazy = SwaggerDiff.compare(oldSpec, newSpec, CompareOptions.v2().lazyResolve(true));
+
+		String markdown = new MarkdownRender().render(lazy);
+		Assert.assertEquals(1, lazy.getChangedEndpoints().size());
+		Assert.assertTrue(markdown.contains("category.code"));
+		Assert.assertTrue(markdown.contains("category.id"));
+	}
+
+	/**
+	 * Spec whose operation refers to a parameter and a response of another file
+	 */
+	private String writeShared(String name, boolean required, String headers) throws IOException {
+		File dir = folder.newFolder(name);
+		Files.write("{\"swagger\":\"2.0\",\"info\":{\"title\":\"pets\",\"version\":\"1\"},\"paths\":{"
+				+ "\"/pets\":{\"get\":{\"summary\":\"list pets\","
+				+ "\"parameters\":[{\"$ref\":\"./common.json#/parameters/limit\"}],"
+				+ "\"responses\":{\"200\":{\"description\":\"ok\"},"
+				+ "\"400\":{\"$ref\":\"./common.json#/responses/BadRequest\"}}}}}}", new File(dir, "main.json"), Charsets.UTF_8);
+		Files.write("{\"parameters\":{\"limit\":{\"name\":\"limit\",\"in\":\"query\",\"required\":" + required
+				+ ",\"type\":\"integer\"}},"
+				+ "\"responses\":{\"BadRequest\":{\"description\":\"bad request\",\"headers\":" + headers + "}}}",
+				new File(dir, "common.json"), Charsets.UTF_8);
+		return new File(dir, "main.json").getAbsolutePath();
+	}
+
+	private String write(String name, String categoryProperty) throws IOException {
+		File dir = folder.newFolder(name);
+		Files.write("{\"swagger\":\"2.0\",\"info\":{\"title\":\"pets\",\"version\":\"1\"},\"paths\":{"
+				+ "\"/pet\":{\"get\":{\"summary\":\"get pet\",\"responses\":{\"200\":{\"description\":\"ok\","
+				+ "\"schema\":{\"$ref\":\"./pet.json#/definitions/Pet\"}}}}}}}", new File(dir, "main.json"), Charsets.UTF_8);
+		Files.write("{\"definitions\":{"
+				+ "\"Pet\":{\"properties\":{\"name\":{\"type\":\"string\"},\"category\":{\"$ref\":\"#/definitions/Category\"}}},"
+				+ "\"Category\":{\"properties\":{\"" + categoryProperty + "\":{\"type\":\"string\"}}}}}",
+				new File(dir, "pet.json"), Charsets.UTF_8);
+		return new File(dir, "main.json").getAbsolutePath();
+	}
+}
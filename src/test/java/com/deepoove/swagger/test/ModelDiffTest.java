@@ -0,0 +1,198 @@
+package com.deepoove.swagger.test;
+
+import com.deepoove.swagger.diff.compare.DiffContext;
+import com.deepoove.swagger.diff.compare.ModelDiff;
+import com.deepoove.swagger.diff.compare.TraversalBudget;
+import com.deepoove.swagger.diff.model.ElProperty;
+import io.swagger.models.ArrayModel;
+import io.swagger.models.ComposedModel;
+import io.swagger.models.Model;
+import io.swagger.models.ModelImpl;
+import io.swagger.models.RefModel;
+import io.swagger.models.properties.ArrayProperty;
+import io.swagger.models.properties.ObjectProperty;
+import io.swagger.models.properties.RefProperty;
+import io.swagger.models.properties.StringProperty;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ModelDiffTest {
+
+	@Test
+	public void testSelfReferencingModel() {
+		Map<String, Model> oldDefinitions = new HashMap<String, Model>();
+		oldDefinitions.put("Node", new ModelImpl()
+				.property("value", new StringProperty())
+				.property("children", new RefProperty("Node")));
+		Map<String, Model> newDefinitions = new HashMap<String, Model>();
+		newDefinitions.put("Node", new ModelImpl()
+				.property("value", new StringProperty())
+				.property("children", new RefProperty("Node"))
+				.property("label", new StringProperty())
+				.property("parent", new RefProperty("Node")));
+
+		ModelDiff diff = ModelDiff.buildWithDefinition(oldDefinitions, newDefinitions)
+				.diffRef("Node", "Node", "body");
+
+		Assert.assertEquals("[body.label, body.parent.value, body.parent.label]",
+				els(diff.getIncreased()).toString());
+		Assert.assertTrue(diff.getMissing().isEmpty());
+	}
+
+	@Test
+	public void testCachedPairIsRebased() {
+		Map<String, Model> oldDefinitions = new HashMap<String, Model>();
+		oldDefinitions.put("Pet", new ModelImpl()
+				.property("name", new StringProperty())
+				.property("category", new RefProperty("Category")));
+		oldDefinitions.put("Category", new ModelImpl()
+				.property("name", new StringProperty()));
+		Map<String, Model> newDefinitions = new HashMap<String, Model>();
+		newDefinitions.put("Pet", new ModelImpl()
+				.property("name", new StringProperty())
+				.property("category", new RefProperty("Category")));
+		newDefinitions.put("Category", new ModelImpl()
+				.property("id", new StringProperty()));
+
+		DiffContext context = new DiffContext(oldDefinitions, newDefinitions);
+		ModelDiff first = ModelDiff.buildWithContext(context).diffRef("Pet", "Pet", "body");
+		ModelDiff second = ModelDiff.buildWithContext(context).diffRef("Pet", "Pet", null);
+
+		Assert.assertEquals("[body.category.id]", els(first.getIncreased()).toString());
+		Assert.assertEquals("[body.category.name]", els(first.getMissing()).toString());
+		Assert.assertEquals("[category.id]", els(second.getIncreased()).toString());
+		Assert.assertEquals("[category.name]", els(second.getMissing()).toString());
+	}
+
+	@Test
+	public void testComposedArrayAndInlineSchemas() {
+		Map<String, Model> oldDefinitions = new HashMap<String, Model>();
+		oldDefinitions.put("Base", new ModelImpl().property("id", new StringProperty()));
+		oldDefinitions.put("Tag", new ModelImpl().property("name", new StringProperty()));
+		oldDefinitions.put("Pet", composed("Base", new ModelImpl()
+				.property("tags", new ArrayProperty(new RefProperty("Tag")))
+				.property("owner", new ObjectProperty().property("name", new StringProperty()))));
+		Map<String, Model> newDefinitions = new HashMap<String, Model>();
+		newDefinitions.put("Base", new ModelImpl().property("id", new StringProperty())
+				.property("version", new StringProperty()));
+		newDefinitions.put("Tag", new ModelImpl().property("label", new StringProperty()));
+		newDefinitions.put("Pet", composed("Base", new ModelImpl()
+				.property("tags", new ArrayProperty(new RefProperty("Tag")))
+				.property("owner", new ObjectProperty().property("email", new StringProperty()))));
+
+		ModelDiff diff = ModelDiff.buildWithDefinition(oldDefinitions, newDefinitions)
+				.diff(new ArrayModel().items(new RefProperty("Pet")), new ArrayModel().items(new RefProperty("Pet")), "body");
+
+		Assert.assertEquals("[body.version, body.tags.label, body.owner.email]", els(diff.getIncreased()).toString());
+		Assert.assertEquals("[body.tags.name, body.owner.name]", els(diff.getMissing()).toString());
+	}
+
+	private static ComposedModel composed(String parent, Model child) {
+		ComposedModel model = new ComposedModel();
+		model.setAllOf(Arrays.asList(new RefModel(parent), child));
+		return model;
+	}
+
+	@Test
+	public void testDeepChainIsNotRecursive() {
+		Map<String, Model> newDefinitions = chain(100000, "value");
+		((ModelImpl) newDefinitions.get("M0")).property("label", new StringProperty());
+		ModelDiff diff = ModelDiff.buildWithDefinition(chain(100000, "value"), newDefinitions)
+				.diffRef("M0", "M0", null);
+
+		Assert.assertEquals("[label]", els(diff.getIncreased()).toString());
+		Assert.assertTrue(diff.getMissing().isEmpty());
+		Assert.assertFalse(diff.isTruncated());
+	}
+
+	@Test
+	public void testDeepPaths() {
+		ModelDiff diff = ModelDiff.buildWithDefinition(chain(20000, "value"), chain(20000, "label"))
+				.diffRef("M0", "M0", "body");
+
+		String el = diff.getIncreased().get(0).getEl();
+		Assert.assertTrue(el.startsWith("body.next.next."));
+		Assert.assertTrue(el.endsWith(".next.label"));
+		Assert.assertEquals("body".length() + 19999 * ".next".length() + ".label".length(), el.length());
+		Assert.assertTrue(diff.getMissing().get(0).getEl().endsWith(".next.value"));
+	}
+
+	@Test
+	public void testTruncatedOverBudget() {
+		DiffContext context = new DiffContext(chain(10, "value"), chain(10, "label"))
+				.budget(TraversalBudget.unlimited().maxDepth(3));
+		ModelDiff diff = ModelDiff.buildWithContext(context).diffRef("M0", "M0", "body");
+
+		Assert.assertTrue(diff.isTruncated());
+		Assert.assertTrue(diff.getIncreased().isEmpty());
+
+		context = new DiffContext(chain(3, "value"), chain(3, "label"))
+				.budget(TraversalBudget.unlimited().maxDepth(3));
+		diff = ModelDiff.buildWithContext(context).diffRef("M0", "M0", "body");
+		Assert.assertFalse(diff.isTruncated());
+		Assert.assertEquals("[body.next.next.label]", els(diff.getIncreased()).toString());
+
+		diff = ModelDiff.buildWithContext(new DiffContext(chain(10, "value"), chain(10, "label"))
+				.budget(TraversalBudget.unlimited().maxNodes(4))).diffRef("M0", "M0", null);
+		Assert.assertTrue(diff.isTruncated());
+	}
+
+	@Test
+	public void testDenseCyclesAreExpandedOnce() {
+		DiffContext context = new DiffContext(dense(12, "value"), dense(12, "label"));
+		context.getTraversalStats().reset();
+		ModelDiff diff = ModelDiff.buildWithContext(context).diffRef("D0", "D0", "body");
+
+		Assert.assertEquals(12, diff.getIncreased().size());
+		Assert.assertEquals(12, diff.getMissing().size());
+		Assert.assertEquals("body.label", diff.getIncreased().get(0).getEl());
+		Assert.assertTrue(context.getTraversalStats().getElProperties() < 12 * 12 * 4);
+
+		ModelDiff again = ModelDiff.buildWithContext(context).diffRef("D0", "D0", null);
+		Assert.assertEquals(12, again.getIncreased().size());
+		Assert.assertEquals("label", again.getIncreased().get(0).getEl());
+	}
+
+	/**
+	 * Definitions D0 to Dn-1, each one referencing all the others and having
+	 * a single string property
+	 */
+	private static Map<String, Model> dense(int size, String leaf) {
+		Map<String, Model> definitions = new HashMap<String, Model>();
+		for (int i = 0; i < size; i++) {
+			ModelImpl model = new ModelImpl().property(leaf, new StringProperty());
+			for (int j = 0; j < size; j++) {
+				if (j != i) model.property("d" + j, new RefProperty("D" + j));
+			}
+			definitions.put("D" + i, model);
+		}
+		return definitions;
+	}
+
+	/**
+	 * Definitions M0 to Mn-1, each one referencing the next, the last one
+	 * having a single string property
+	 */
+	private static Map<String, Model> chain(int length, String leaf) {
+		Map<String, Model> definitions = new HashMap<String, Model>();
+		for (int i = 0; i < length - 1; i++) {
+			definitions.put("M" + i, new ModelImpl().property("next", new RefProperty("M" + (i + 1))));
+		}
+		definitions.put("M" + (length - 1), new ModelImpl().property(leaf, new StringProperty()));
+		return definitions;
+	}
+
+	private static List<String> els(List<ElProperty> props) {
+		List<String> els = new ArrayList<String>();
+		for (ElProperty prop : props) {
+			els.add(prop.getEl());
+		}
+		return els;
+	}
+}
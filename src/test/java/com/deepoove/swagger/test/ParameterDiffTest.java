@@ -0,0 +1,36 @@
+package com.deepoove.swagger.test;
+
+import com.deepoove.swagger.diff.compare.ParameterDiff;
+import io.swagger.models.Model;
+import io.swagger.models.parameters.HeaderParameter;
+import io.swagger.models.parameters.Parameter;
+import io.swagger.models.parameters.QueryParameter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+public class ParameterDiffTest {
+
+	@Test
+	public void testMatchByLocationAndName() {
+		Parameter queryId = new QueryParameter().name("id");
+		Parameter headerId = new HeaderParameter().name("id");
+		Parameter queryLimit = new QueryParameter().name("limit");
+		Parameter queryOffset = new QueryParameter().name("offset");
+		Parameter changedLimit = new QueryParameter().name("limit").description("page size");
+
+		List<Parameter> left = Arrays.asList(queryId, queryLimit);
+		List<Parameter> right = Arrays.asList(queryOffset, headerId, changedLimit);
+		ParameterDiff diff = ParameterDiff.buildWithDefinition(new HashMap<String, Model>(),
+				new HashMap<String, Model>()).diff(left, right);
+
+		Assert.assertEquals(Arrays.asList(queryOffset, headerId), diff.getIncreased());
+		Assert.assertEquals(Arrays.asList(queryId), diff.getMissing());
+		Assert.assertEquals(1, diff.getChanged().size());
+		Assert.assertSame(changedLimit, diff.getChanged().get(0).getRightParameter());
+		Assert.assertTrue(diff.getChanged().get(0).isChangeDescription());
+	}
+}
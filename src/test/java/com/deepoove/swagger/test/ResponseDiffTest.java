@@ -0,0 +1,51 @@
+package com.deepoove.swagger.test;
+
+import com.deepoove.swagger.diff.compare.ResponseDiff;
+import com.deepoove.swagger.diff.model.ChangedResponse;
+import io.swagger.models.Model;
+import io.swagger.models.ModelImpl;
+import io.swagger.models.Response;
+import io.swagger.models.properties.ArrayProperty;
+import io.swagger.models.properties.IntegerProperty;
+import io.swagger.models.properties.RefProperty;
+import io.swagger.models.properties.StringProperty;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class ResponseDiffTest {
+
+	@Test
+	public void testEveryCodeAndHeader() {
+		Map<String, Model> oldDefinitions = new HashMap<String, Model>();
+		oldDefinitions.put("Error", new ModelImpl().property("message", new StringProperty()));
+		Map<String, Model> newDefinitions = new HashMap<String, Model>();
+		newDefinitions.put("Error", new ModelImpl().property("message", new StringProperty())
+				.property("code", new IntegerProperty()));
+
+		Map<String, Response> left = new LinkedHashMap<String, Response>();
+		left.put("200", new Response().description("ok"));
+		left.put("400", new Response().schema(new RefProperty("Error")));
+		left.put("404", new Response().schema(new ArrayProperty(new RefProperty("Error"))));
+		left.put("500", new Response().description("failure"));
+		Map<String, Response> right = new LinkedHashMap<String, Response>();
+		right.put("200", new Response().description("ok").header("X-Rate-Limit", new IntegerProperty()));
+		right.put("201", new Response().description("created"));
+		right.put("400", new Response().schema(new RefProperty("Error")));
+		right.put("404", new Response().schema(new ArrayProperty(new RefProperty("Error"))));
+
+		ResponseDiff diff = ResponseDiff.buildWithDefinition(oldDefinitions, newDefinitions).diff(left, right);
+
+		Assert.assertEquals("[201]", diff.getIncreased().keySet().toString());
+		Assert.assertEquals("[500]", diff.getMissing().keySet().toString());
+		Assert.assertEquals("[200, 400, 404]", diff.getChanged().keySet().toString());
+		ChangedResponse ok = diff.getChanged().get("200");
+		Assert.assertEquals("[X-Rate-Limit]", ok.getAddHeaders().keySet().toString());
+		Assert.assertFalse(ok.isDiffProp());
+		Assert.assertEquals("code", diff.getChanged().get("400").getAddProps().get(0).getEl());
+		Assert.assertEquals("code", diff.getChanged().get("404").getAddProps().get(0).getEl());
+	}
+}
@@ -0,0 +1,87 @@
+package com.deepoove.swagger.test;
+
+import com.deepoove.swagger.diff.CompareOptions;
+import com.deepoove.swagger.diff.SwaggerDiff;
+import com.deepoove.swagger.diff.output.MarkdownRender;
+import com.deepoove.swagger.diff.spec.GuavaSpecCache;
+import com.google.common.io.Files;
+import io.swagger.models.Swagger;
+import io.swagger.models.auth.AuthorizationValue;
+import io.swagger.parser.SwaggerParser;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SpecCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testReloadWhenFileChanges() throws Exception {
+		final File spec = folder.newFile("spec.json");
+		Files.copy(new File(getClass().getClassLoader().getResource("petstore_v1.json").toURI()), spec);
+		final AtomicInteger loads = new AtomicInteger();
+		Callable<Swagger> loader = new Callable<Swagger>() {
+			public Swagger call() {
+				loads.incrementAndGet();
+				return new SwaggerParser().read(spec.getAbsolutePath(), null, true);
+			}
+		};
+
+		GuavaSpecCache cache = GuavaSpecCache.maximumSize(10);
+		Swagger first = cache.get(spec.getAbsolutePath(), null, "2.0", loader);
+		Assert.assertSame(first, cache.get(spec.getAbsolutePath(), null, "2.0", loader));
+		Assert.assertEquals(1, loads.get());
+
+		Files.copy(new File(getClass().getClassLoader().getResource("petstore_v2.json").toURI()), spec);
+		spec.setLastModified(spec.lastModified() + 2000);
+		Assert.assertNotSame(first, cache.get(spec.getAbsolutePath(), null, "2.0", loader));
+		Assert.assertEquals(2, loads.get());
+	}
+
+	@Test
+	public void testAuthsCachedApart() throws Exception {
+		final File spec = folder.newFile("spec.json");
+		Files.copy(new File(getClass().getClassLoader().getResource("petstore_v1.json").toURI()), spec);
+		final AtomicInteger loads = new AtomicInteger();
+		Callable<Swagger> loader = new Callable<Swagger>() {
+			public Swagger call() {
+				loads.incrementAndGet();
+				return new SwaggerParser().read(spec.getAbsolutePath(), null, true);
+			}
+		};
+		List<AuthorizationValue> alice = Arrays.asList(new AuthorizationValue("Authorization", "alice", "header"));
+		List<AuthorizationValue> bob = Arrays.asList(new AuthorizationValue("Authorization", "bob", "header"));
+
+		GuavaSpecCache cache = GuavaSpecCache.maximumSize(10);
+		Swagger first = cache.get(spec.getAbsolutePath(), alice, "2.0", loader);
+		Assert.assertNotSame(first, cache.get(spec.getAbsolutePath(), bob, "2.0", loader));
+		Assert.assertSame(first, cache.get(spec.getAbsolutePath(),
+				Arrays.asList(new AuthorizationValue("Authorization", "alice", "header")), "2.0", loader));
+		Assert.assertEquals(2, loads.get());
+	}
+
+	@Test
+	public void testCompareWithCache() {
+		GuavaSpecCache cache = GuavaSpecCache.maximumWeight(100000);
+		CompareOptions options = CompareOptions.v2().specCache(cache);
+		String first = new MarkdownRender().render(SwaggerDiff.compare("petstore_v1.json", "petstore_v2.json", options));
+		String second = new MarkdownRender().render(SwaggerDiff.compare("petstore_v1.json", "petstore_v2.json", options));
+
+		Assert.assertEquals(first, second);
+		Assert.assertEquals(2, cache.size());
+		Assert.assertEquals(2, cache.stats().hitCount());
+
+		GuavaSpecCache tiny = GuavaSpecCache.maximumWeight(1);
+		SwaggerDiff.compare("petstore_v1.json", "petstore_v2.json", CompareOptions.v2().specCache(tiny));
+		Assert.assertEquals(0, tiny.size());
+	}
+}
@@ -0,0 +1,123 @@
+package com.deepoove.swagger.test;
+
+import com.deepoove.swagger.diff.CompareOptions;
+import com.deepoove.swagger.diff.SwaggerDiff;
+import com.deepoove.swagger.diff.output.MarkdownRender;
+import com.deepoove.swagger.diff.spec.HttpSpecFetcher;
+import com.deepoove.swagger.diff.spec.SpecDownloads;
+import com.deepoove.swagger.diff.spec.SpecFetcher;
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import io.swagger.models.Swagger;
+import io.swagger.models.auth.AuthorizationValue;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SpecDownloadsTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private HttpServer server;
+	private volatile String resource = "petstore_v1.json";
+	private final AtomicInteger downloads = new AtomicInteger();
+	private final AtomicInteger notModified = new AtomicInteger();
+
+	@Before
+	public void start() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", new HttpHandler() {
+			public void handle(HttpExchange exchange) throws IOException {
+				final String current = resource;
+				final String etag = "\"" + current + "\"";
+				if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+					notModified.incrementAndGet();
+					exchange.sendResponseHeaders(304, -1);
+					exchange.close();
+					return;
+				}
+				downloads.incrementAndGet();
+				final InputStream in = getClass().getClassLoader().getResourceAsStream(current);
+				final byte[] content = ByteStreams.toByteArray(in);
+				in.close();
+				exchange.getResponseHeaders().set("ETag", etag);
+				exchange.sendResponseHeaders(200, content.length);
+				final OutputStream out = exchange.getResponseBody();
+				out.write(content);
+				out.close();
+			}
+		});
+		server.start();
+	}
+
+	@After
+	public void stop() {
+		server.stop(0);
+	}
+
+	@Test
+	public void testRevalidateCopy() throws Exception {
+		final String location = "http://127.0.0.1:" + server.getAddress().getPort() + "/spec.json";
+		SpecDownloads specDownloads = new SpecDownloads(folder.getRoot());
+
+		Swagger first = specDownloads.read(location, null, true);
+		Assert.assertSame(first, specDownloads.read(location, null, true));
+		Assert.assertEquals(1, downloads.get());
+		Assert.assertEquals(1, notModified.get());
+
+		SpecDownloads reopened = new SpecDownloads(folder.getRoot());
+		Assert.assertNotNull(reopened.read(location, null, false));
+		Assert.assertEquals(1, downloads.get());
+
+		resource = "petstore_v2.json";
+		Swagger second = specDownloads.read(location, null, true);
+		Assert.assertNotSame(first, second);
+		Assert.assertEquals(2, downloads.get());
+		Assert.assertEquals(second.getPaths().keySet(), reopened.read(location, null, false).getPaths().keySet());
+	}
+
+	@Test
+	public void testBoundedParsedSpecs() throws Exception {
+		final String base = "http://127.0.0.1:" + server.getAddress().getPort();
+		SpecDownloads specDownloads = new SpecDownloads(folder.getRoot(), new HttpSpecFetcher(), 1);
+
+		Swagger first = specDownloads.read(base + "/a.json", null, true);
+		Assert.assertSame(first, specDownloads.read(base + "/a.json", null, true));
+		specDownloads.read(base + "/b.json", null, true);
+		Assert.assertNotSame(first, specDownloads.read(base + "/a.json", null, true));
+		Assert.assertEquals(2, downloads.get());
+	}
+
+	@Test
+	public void testCompareWithDownloads() throws Exception {
+		final String location = "http://127.0.0.1:" + server.getAddress().getPort() + "/spec.json";
+		final AtomicInteger fetches = new AtomicInteger();
+		SpecFetcher counting = new SpecFetcher() {
+			public Fetched fetch(String location, List<AuthorizationValue> auths, String etag, String lastModified)
+					throws IOException {
+				fetches.incrementAndGet();
+				return new HttpSpecFetcher().fetch(location, auths, etag, lastModified);
+			}
+		};
+		CompareOptions options = CompareOptions.v2().downloads(new SpecDownloads(folder.getRoot(), counting));
+
+		String expected = new MarkdownRender().render(SwaggerDiff.compareV2("petstore_v1.json", "petstore_v1.json"));
+		Assert.assertEquals(expected, new MarkdownRender().render(SwaggerDiff.compare("petstore_v1.json", location, options)));
+		Assert.assertEquals(expected, new MarkdownRender().render(SwaggerDiff.compare(location, location, options)));
+		Assert.assertEquals(3, fetches.get());
+		Assert.assertEquals(1, downloads.get());
+	}
+}
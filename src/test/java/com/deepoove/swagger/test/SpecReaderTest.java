@@ -0,0 +1,75 @@
+package com.deepoove.swagger.test;
+
+import com.deepoove.swagger.diff.SwaggerDiff;
+import com.deepoove.swagger.diff.model.ChangedOperation;
+import com.deepoove.swagger.diff.output.MarkdownRender;
+import com.deepoove.swagger.diff.spec.SpecReader;
+import io.swagger.models.HttpMethod;
+import io.swagger.util.Json;
+import io.swagger.util.Yaml;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+
+public class SpecReaderTest {
+
+	final String SWAGGER_V1_LOCAL_DOC = "petstore_v1.json";
+	final String SWAGGER_V2_DOC = "petstore_v2.json";
+	final String SWAGGER_EMPTY_DOC = "petstore_empty.json";
+	final String SHARED_REFS_V1_DOC = "shared_refs_v1.json";
+	final String SHARED_REFS_V2_DOC = "shared_refs_v2.json";
+
+	@Test
+	public void testSameDiffAsParser() throws Exception {
+		String[][] pairs = {
+				{SWAGGER_V1_LOCAL_DOC, SWAGGER_V2_DOC},
+				{SWAGGER_EMPTY_DOC, SWAGGER_V2_DOC},
+				{SWAGGER_V2_DOC, SWAGGER_V1_LOCAL_DOC}};
+		for (String[] pair : pairs) {
+			SwaggerDiff expected = SwaggerDiff.compareV2(pair[0], pair[1]);
+			SwaggerDiff streamed = SwaggerDiff.compare(SpecReader.read(pair[0], null), SpecReader.read(pair[1], null));
+			Assert.assertEquals(new MarkdownRender().render(expected), new MarkdownRender().render(streamed));
+		}
+	}
+
+	@Test
+	public void testSharedParameterAndResponseRefs() throws Exception {
+		SwaggerDiff expected = SwaggerDiff.compareV2(SHARED_REFS_V1_DOC, SHARED_REFS_V2_DOC);
+		SwaggerDiff streamed = SwaggerDiff.compare(resource(SHARED_REFS_V1_DOC), resource(SHARED_REFS_V2_DOC));
+		Assert.assertEquals(new MarkdownRender().render(expected), new MarkdownRender().render(streamed));
+
+		Assert.assertEquals(2, streamed.getChangedEndpoints().size());
+		ChangedOperation list = streamed.getChangedEndpoints().get(0).getChangedOperations().get(HttpMethod.GET);
+		Assert.assertEquals("offset", list.getAddParameters().get(0).getName());
+		Assert.assertEquals("limit", list.getChangedParameter().get(0).getRightParameter().getName());
+		Assert.assertTrue(list.getChangedParameter().get(0).isChangeRequired());
+		Assert.assertTrue(list.getChangedResponses().get("400").getAddHeaders().containsKey("X-Trace"));
+	}
+
+	@Test
+	public void testYamlStream() throws Exception {
+		InputStream json = getClass().getClassLoader().getResourceAsStream(SWAGGER_V2_DOC);
+		byte[] yaml;
+		try {
+			yaml = Yaml.mapper().writeValueAsBytes(Json.mapper().readTree(json));
+		} finally {
+			json.close();
+		}
+
+		SwaggerDiff expected = SwaggerDiff.compareV2(SWAGGER_V1_LOCAL_DOC, SWAGGER_V2_DOC);
+		InputStream oldSpec = getClass().getClassLoader().getResourceAsStream(SWAGGER_V1_LOCAL_DOC);
+		try {
+			SwaggerDiff streamed = SwaggerDiff.compare(oldSpec, new ByteArrayInputStream(yaml));
+			Assert.assertEquals(new MarkdownRender().render(expected), new MarkdownRender().render(streamed));
+		} finally {
+			oldSpec.close();
+		}
+	}
+
+	private File resource(String name) throws Exception {
+		return new File(getClass().getClassLoader().getResource(name).toURI());
+	}
+}
@@ -0,0 +1,89 @@
+package com.deepoove.swagger.test;
+
+import com.deepoove.swagger.diff.SwaggerDiff;
+import com.deepoove.swagger.diff.output.MarkdownRender;
+import com.deepoove.swagger.diff.spec.SpecStore;
+import io.swagger.models.Swagger;
+import io.swagger.models.parameters.RefParameter;
+import io.swagger.parser.SwaggerParser;
+import io.swagger.util.Json;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+public class SpecStoreTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testCompareWithStoredVersion() throws Exception {
+		Swagger oldSpec = new SwaggerParser().read("petstore_v1.json", null, true);
+		Swagger newSpec = new SwaggerParser().read("petstore_v2.json", null, true);
+		String expected = new MarkdownRender().render(SwaggerDiff.compare(oldSpec, newSpec));
+
+		SpecStore store = new SpecStore(folder.getRoot());
+		store.put("1.0", oldSpec);
+		store.put("2.0", newSpec);
+
+		SpecStore reopened = new SpecStore(folder.getRoot());
+		Assert.assertEquals(Arrays.asList("1.0", "2.0"), sorted(reopened.versions().toArray(new String[0])));
+		Assert.assertEquals(expected, new MarkdownRender().render(reopened.compare("1.0", newSpec)));
+
+		SwaggerDiff same = reopened.compare("2.0", newSpec);
+		Assert.assertTrue(same.getNewEndpoints().isEmpty());
+		Assert.assertTrue(same.getMissingEndpoints().isEmpty());
+		Assert.assertTrue(same.getChangedEndpoints().isEmpty());
+	}
+
+	@Test
+	public void testSharedParameterAndResponseRefs() throws Exception {
+		String expected = new MarkdownRender().render(SwaggerDiff.compareV2("shared_refs_v1.json", "shared_refs_v2.json"));
+
+		SpecStore store = new SpecStore(folder.getRoot());
+		store.put("1.0", unresolved("shared_refs_v1.json"));
+
+		SpecStore reopened = new SpecStore(folder.getRoot());
+		Assert.assertEquals(expected, new MarkdownRender().render(reopened.compare("1.0", unresolved("shared_refs_v2.json"))));
+
+		Swagger loaded = reopened.load("1.0", null);
+		Assert.assertEquals(Arrays.asList("Error", "Pet"), sorted(loaded.getDefinitions().keySet().toArray(new String[0])));
+		Assert.assertEquals("limit", loaded.getPaths().get("/pets").getGet().getParameters().get(0).getName());
+		Assert.assertEquals("limit", loaded.getParameters().get("limit").getName());
+		Assert.assertEquals("Bad request", loaded.getResponses().get("BadRequest").getDescription());
+	}
+
+	@Test
+	public void testRefToAnotherFileCannotBeStored() throws Exception {
+		Swagger spec = unresolved("shared_refs_v1.json");
+		spec.getPaths().get("/pets").getGet().getParameters().set(0, new RefParameter("common.json#/parameters/limit"));
+		try {
+			new SpecStore(folder.getRoot()).put("1.0", spec);
+			Assert.fail();
+		} catch (IOException e) {
+			Assert.assertTrue(e.getMessage().contains("refs to other files cannot be stored"));
+		}
+	}
+
+	/**
+	 * Spec as written, its refs to shared parameters and responses left as they are
+	 */
+	private Swagger unresolved(String name) throws IOException {
+		InputStream in = getClass().getClassLoader().getResourceAsStream(name);
+		try {
+			return Json.mapper().readValue(in, Swagger.class);
+		} finally {
+			in.close();
+		}
+	}
+
+	private static java.util.List<String> sorted(String[] values) {
+		Arrays.sort(values);
+		return Arrays.asList(values);
+	}
+}
@@ -0,0 +1,79 @@
+package com.deepoove.swagger.test;
+
+import com.deepoove.swagger.diff.SwaggerDiff;
+import com.deepoove.swagger.diff.SwaggerDiffCli;
+import com.deepoove.swagger.diff.output.HtmlRender;
+import com.deepoove.swagger.diff.output.MarkdownRender;
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+
+public class SwaggerDiffCliTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+	private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+	@Test
+	public void testManifest() throws Exception {
+		SwaggerDiff diff = SwaggerDiff.compareV2("petstore_v1.json", "petstore_v2.json");
+		File markdown = new File(folder.getRoot(), "reports/v2.md");
+		File html = new File(folder.getRoot(), "reports/v2.html");
+		File same = new File(folder.getRoot(), "same.txt");
+		File manifest = folder.newFile("manifest.txt");
+		Files.write("# old new output [format]\n"
+				+ "petstore_v1.json petstore_v2.json " + markdown.getAbsolutePath() + "\n"
+				+ "\n"
+				+ "petstore_v1.json\tpetstore_v2.json\t" + html.getAbsolutePath() + "\n"
+				+ "petstore_v2.json petstore_v2.json " + same.getAbsolutePath() + " json\n", manifest, Charsets.UTF_8);
+
+		Assert.assertEquals(0, run(null, "--threads", "2", "--manifest", manifest.getAbsolutePath()));
+		Assert.assertEquals(new MarkdownRender().render(diff), Files.toString(markdown, Charsets.UTF_8));
+		Assert.assertEquals(new HtmlRender().render(diff), Files.toString(html, Charsets.UTF_8));
+		Assert.assertTrue(Files.toString(same, Charsets.UTF_8).startsWith("{\"newEndpoints\":[]"));
+
+		Assert.assertEquals(0, run(null, "petstore_v1.json", "petstore_v2.json"));
+		Assert.assertEquals(new MarkdownRender().render(diff), out.toString("UTF-8"));
+	}
+
+	@Test
+	public void testDaemon() throws Exception {
+		File report = new File(folder.getRoot(), "report.md");
+		String jobs = "petstore_v1.json petstore_v2.json " + report.getAbsolutePath() + "\n"
+				+ "petstore_v1.json not_found.json " + folder.getRoot().getAbsolutePath() + "/missing.md\n";
+
+		Assert.assertEquals(1, run(jobs, "--daemon"));
+		List<String> status = Arrays.asList(out.toString("UTF-8").split("\n"));
+		Assert.assertEquals(2, status.size());
+		Assert.assertTrue(status.contains("OK " + report.getAbsolutePath()));
+		Assert.assertTrue(report.isFile());
+		Assert.assertFalse(new File(folder.getRoot(), "missing.md").exists());
+	}
+
+	@Test
+	public void testUsage() throws Exception {
+		Assert.assertEquals(2, run(null, "petstore_v1.json"));
+		Assert.assertEquals(2, run(null, "--daemon", "--manifest", "manifest.txt"));
+		Assert.assertEquals(2, run(null, "old", "new", "out", "pdf"));
+		Assert.assertTrue(err.toString("UTF-8").contains("usage:"));
+	}
+
+	private int run(String stdin, String... args) throws Exception {
+		out.reset();
+		InputStream in = new ByteArrayInputStream(null == stdin ? new byte[0] : stdin.getBytes("UTF-8"));
+		return SwaggerDiffCli.run(args, in, new PrintStream(out, true, "UTF-8"), new PrintStream(err, true, "UTF-8"));
+	}
+}
@@ -1,25 +1,95 @@
 package com.deepoove.swagger.test;
 
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.deepoove.swagger.diff.CompareOptions;
+import com.deepoove.swagger.diff.DiffListener;
+import com.deepoove.swagger.diff.DiffListenerAdapter;
+import com.deepoove.swagger.diff.DiffService;
 import com.deepoove.swagger.diff.SwaggerDiff;
 import com.deepoove.swagger.diff.model.ChangedEndpoint;
+import com.deepoove.swagger.diff.model.ChangedOperation;
+import com.deepoove.swagger.diff.model.DetachedParameter;
 import com.deepoove.swagger.diff.model.Endpoint;
 import com.deepoove.swagger.diff.output.HtmlRender;
+import com.deepoove.swagger.diff.output.JsonRender;
 import com.deepoove.swagger.diff.output.MarkdownRender;
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import io.swagger.models.Operation;
+import io.swagger.models.Path;
+import io.swagger.models.Swagger;
+import io.swagger.models.parameters.QueryParameter;
+import io.swagger.util.Json;
+import org.junit.AfterClass;
 import org.junit.Assert;
+import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class SwaggerDiffTest {
 
-	final String SWAGGER_V1_DOC = "http://petstore.swagger.io/v2/swagger.json";
+	/**
+	 * Serves a copy of the petstore spec, so the tests reading it over http run
+	 * offline
+	 */
+	private static HttpServer server;
+
+	final String SWAGGER_V1_DOC = "http://127.0.0.1:" + server.getAddress().getPort() + "/v2/swagger.json";
 	// String swagger_v1_doc = "petstore_v1.json";
 	final String SWAGGER_V2_DOC = "petstore_v2.json";
 
 	final String SWAGGER_EMPTY_DOC = "petstore_empty.json";
 
+	final String SWAGGER_V1_LOCAL_DOC = "petstore_v1.json";
+
+	@BeforeClass
+	public static void startServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/v2/swagger.json", new HttpHandler() {
+			public void handle(HttpExchange exchange) throws IOException {
+				final byte[] content = Resources.toByteArray(Resources.getResource("petstore_v1.json"));
+				exchange.getResponseHeaders().set("Content-Type", "application/json");
+				exchange.sendResponseHeaders(200, content.length);
+				final OutputStream out = exchange.getResponseBody();
+				out.write(content);
+				out.close();
+			}
+		});
+		server.start();
+	}
+
+	@AfterClass
+	public static void stopServer() {
+		server.stop(0);
+	}
+
 	@Test
 	public void testEqual() {
 		SwaggerDiff diff = SwaggerDiff.compareV2(SWAGGER_V1_DOC, SWAGGER_V1_DOC);
@@ -109,4 +179,277 @@ public class SwaggerDiffTest {
 			e.printStackTrace();
 		}
 	}
+
+	@Test
+	public void testParallelCompare() {
+		SwaggerDiff sequential = SwaggerDiff.compareV2(SWAGGER_V1_LOCAL_DOC, SWAGGER_V2_DOC);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			SwaggerDiff parallel = SwaggerDiff.compare(SWAGGER_V1_LOCAL_DOC, SWAGGER_V2_DOC, null,
+					SwaggerDiff.SWAGGER_VERSION_V2, executor);
+			Assert.assertEquals(new MarkdownRender().render(sequential),
+					new MarkdownRender().render(parallel));
+			Assert.assertFalse(parallel.getChangedEndpoints().isEmpty());
+
+			try {
+				SwaggerDiff.compare(SWAGGER_V1_LOCAL_DOC, "petstore_missing.json", null,
+						SwaggerDiff.SWAGGER_VERSION_V2, executor);
+				Assert.fail();
+			} catch (RuntimeException e) {
+				Assert.assertEquals("cannot read api-doc from spec.", e.getMessage());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testParallelCompareManyPaths() throws IOException {
+		File oldSpec = write(syntheticSpec(150, false));
+		File newSpec = write(syntheticSpec(150, true));
+		SwaggerDiff sequential = SwaggerDiff.compareV2(oldSpec.getAbsolutePath(), newSpec.getAbsolutePath());
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(4, 4, 0, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>());
+		try {
+			SwaggerDiff parallel = SwaggerDiff.compare(oldSpec.getAbsolutePath(), newSpec.getAbsolutePath(), null,
+					SwaggerDiff.SWAGGER_VERSION_V2, executor);
+			// 100 changed paths in chunks of 32, besides 2 reads and 2 fingerprints
+			Assert.assertEquals(8, executor.getTaskCount());
+
+			Assert.assertEquals(100, parallel.getChangedEndpoints().size());
+			List<String> expected = new ArrayList<String>();
+			for (ChangedEndpoint changedEndpoint : sequential.getChangedEndpoints()) {
+				expected.add(changedEndpoint.getPathUrl());
+			}
+			List<String> actual = new ArrayList<String>();
+			for (ChangedEndpoint changedEndpoint : parallel.getChangedEndpoints()) {
+				actual.add(changedEndpoint.getPathUrl());
+			}
+			Assert.assertEquals(expected, actual);
+			Assert.assertEquals(new MarkdownRender().render(sequential), new MarkdownRender().render(parallel));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Spec of many paths, the new one adding a query parameter to two paths
+	 * out of three
+	 */
+	private static Swagger syntheticSpec(int paths, boolean changed) {
+		Swagger swagger = new Swagger();
+		for (int i = 0; i < paths; i++) {
+			Operation operation = new Operation().summary("item " + i)
+					.parameter(new QueryParameter().name("q").type("string"));
+			if (changed && i % 3 != 0) {
+				operation.parameter(new QueryParameter().name("added" + i).type("string"));
+			}
+			swagger.path("/items/" + i, new Path().get(operation));
+		}
+		return swagger;
+	}
+
+	private static File write(Swagger swagger) throws IOException {
+		File file = File.createTempFile("synthetic", ".json");
+		file.deleteOnExit();
+		Json.mapper().writeValue(file, swagger);
+		return file;
+	}
+
+	@Test
+	public void testCompareAll() {
+		List<String> candidates = Arrays.asList(SWAGGER_V2_DOC, SWAGGER_EMPTY_DOC, SWAGGER_V1_LOCAL_DOC);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Map<String, SwaggerDiff> diffs = SwaggerDiff.compareAllV2(SWAGGER_V1_LOCAL_DOC, candidates, executor);
+			Assert.assertEquals(candidates, new ArrayList<String>(diffs.keySet()));
+			for (String candidate : candidates) {
+				SwaggerDiff expected = SwaggerDiff.compareV2(SWAGGER_V1_LOCAL_DOC, candidate);
+				Assert.assertEquals(new MarkdownRender().render(expected),
+						new MarkdownRender().render(diffs.get(candidate)));
+			}
+			Assert.assertTrue(diffs.get(SWAGGER_V1_LOCAL_DOC).getChangedEndpoints().isEmpty());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testDiffService() throws Exception {
+		final CountDownLatch reading = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		DiffListener blocking = new DiffListenerAdapter() {
+			@Override
+			public void specRead(String location, long nanos) {
+				reading.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+		DiffService service = DiffService.create(2, 1, 1);
+		try {
+			ListenableFuture<SwaggerDiff> first = service.compare(SWAGGER_V1_LOCAL_DOC, SWAGGER_V2_DOC,
+					CompareOptions.v2().listener(blocking));
+			reading.await();
+			ListenableFuture<SwaggerDiff> rejected = service.tryCompare(SWAGGER_V1_LOCAL_DOC, SWAGGER_V2_DOC, CompareOptions.v2());
+			try {
+				rejected.get();
+				Assert.fail();
+			} catch (ExecutionException e) {
+				Assert.assertTrue(e.getCause() instanceof RejectedExecutionException);
+			}
+			release.countDown();
+
+			String expected = new MarkdownRender().render(SwaggerDiff.compareV2(SWAGGER_V1_LOCAL_DOC, SWAGGER_V2_DOC));
+			Assert.assertEquals(expected, new MarkdownRender().render(first.get()));
+			Assert.assertEquals(expected, new MarkdownRender().render(service.compareV2(SWAGGER_V1_LOCAL_DOC, SWAGGER_V2_DOC).get()));
+			try {
+				service.compareV2(SWAGGER_V1_LOCAL_DOC, "not_found.json").get();
+				Assert.fail();
+			} catch (ExecutionException e) {
+				Assert.assertTrue(e.getCause() instanceof RuntimeException);
+			}
+			Assert.assertEquals(1, service.availablePermits());
+		} finally {
+			service.shutdown();
+		}
+	}
+
+	@Test
+	public void testDiffServiceHoldsPermitUntilWorkEnds() throws Exception {
+		final CountDownLatch reading = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		DiffListener listener = new DiffListenerAdapter() {
+			@Override
+			public void specRead(String location, long nanos) {
+				if ("failing.json".equals(location)) {
+					throw new IllegalStateException("cannot read " + location);
+				}
+				reading.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+		DiffService service = DiffService.create(2, 1, 1);
+		try {
+			ListenableFuture<SwaggerDiff> diff = service.compare("failing.json", SWAGGER_V1_LOCAL_DOC,
+					CompareOptions.v2().listener(listener));
+			reading.await();
+			Assert.assertFalse(diff.isDone());
+			Assert.assertTrue(diff.cancel(true));
+			Assert.assertEquals(0, service.availablePermits());
+
+			release.countDown();
+			long deadline = System.currentTimeMillis() + 10000;
+			while (service.availablePermits() == 0 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			Assert.assertEquals(1, service.availablePermits());
+		} finally {
+			service.shutdown();
+		}
+	}
+
+	@Test
+	public void testListener() {
+		final List<String> stages = Collections.synchronizedList(new ArrayList<String>());
+		final AtomicInteger modelNodes = new AtomicInteger();
+		DiffListener listener = new DiffListenerAdapter() {
+			@Override
+			public void specRead(String location, long nanos) {
+				stages.add("read " + location);
+			}
+
+			@Override
+			public void endpointCompared(String pathUrl, long nanos, int nodes, int depth, int elProperties) {
+				modelNodes.addAndGet(nodes);
+			}
+
+			@Override
+			public void compared(String oldSpec, String newSpec, long nanos) {
+				stages.add("compared");
+			}
+
+			@Override
+			public void rendered(String format, long nanos) {
+				stages.add("rendered " + format);
+			}
+		};
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			SwaggerDiff diff = SwaggerDiff.compare(SWAGGER_V1_LOCAL_DOC, SWAGGER_V2_DOC,
+					CompareOptions.v2().executor(executor).listener(listener));
+			new MarkdownRender().render(diff);
+		} finally {
+			executor.shutdown();
+		}
+
+		Assert.assertTrue(stages.containsAll(Arrays.asList("read " + SWAGGER_V1_LOCAL_DOC, "read " + SWAGGER_V2_DOC)));
+		Assert.assertEquals(Arrays.asList("compared", "rendered markdown"), stages.subList(2, 4));
+		Assert.assertTrue(modelNodes.get() > 0);
+	}
+
+	@Test
+	public void testStreamingRender() throws IOException {
+		SwaggerDiff diff = SwaggerDiff.compareV2(SWAGGER_V1_LOCAL_DOC, SWAGGER_V2_DOC);
+		// rendered by the renderers as they were before streaming
+		String expectedHtml = Resources.toString(Resources.getResource("petstore_v1_v2.html"), Charsets.UTF_8);
+		String expectedMarkdown = Resources.toString(Resources.getResource("petstore_v1_v2.md"), Charsets.UTF_8);
+		StringWriter html = new StringWriter();
+		new HtmlRender().render(diff, html);
+		StringWriter markdown = new StringWriter();
+		new MarkdownRender().render(diff, markdown);
+		Assert.assertEquals(expectedHtml, html.toString());
+		Assert.assertEquals(expectedMarkdown, markdown.toString());
+		Assert.assertEquals(expectedHtml, new HtmlRender().render(diff));
+		Assert.assertEquals(expectedMarkdown, new MarkdownRender().render(diff));
+	}
+
+	@Test
+	public void testJsonRender() throws IOException {
+		SwaggerDiff diff = SwaggerDiff.compareV2(SWAGGER_V1_LOCAL_DOC, SWAGGER_V2_DOC);
+		String json = new JsonRender().render(diff);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		new JsonRender().renderUtf8(diff, bytes);
+		Assert.assertEquals(json, new String(bytes.toByteArray(), "UTF-8"));
+		ByteArrayOutputStream printed = new ByteArrayOutputStream();
+		new JsonRender().render(diff, new PrintStream(printed, true, "UTF-8"));
+		Assert.assertEquals(json, new String(printed.toByteArray(), "UTF-8"));
+
+		JSONObject report = JSON.parseObject(json);
+		Assert.assertEquals(diff.getNewEndpoints().size(), report.getJSONArray("newEndpoints").size());
+		JSONObject changed = report.getJSONArray("changedEndpoints").getJSONObject(0);
+		Assert.assertEquals("POST", changed.getString("method"));
+		Assert.assertEquals("/pet", changed.getString("pathUrl"));
+		Assert.assertEquals("tags", changed.getJSONArray("addParameters").getJSONObject(0).getString("name"));
+		Assert.assertEquals("body.category.name",
+				changed.getJSONArray("changedParameters").getJSONObject(0).getJSONArray("missingProps").getJSONObject(0).getString("el"));
+		Assert.assertTrue(changed.containsKey("summary"));
+	}
+
+	@Test
+	public void testDetach() {
+		SwaggerDiff diff = SwaggerDiff.compareV2(SWAGGER_V1_LOCAL_DOC, SWAGGER_V2_DOC);
+		String html = new HtmlRender().render(diff);
+		String markdown = new MarkdownRender().render(diff);
+
+		diff.detach();
+		Assert.assertEquals(html, new HtmlRender().render(diff));
+		Assert.assertEquals(markdown, new MarkdownRender().render(diff));
+		for (ChangedEndpoint changedEndpoint : diff.getChangedEndpoints()) {
+			for (ChangedOperation changedOperation : changedEndpoint.getChangedOperations().values()) {
+				for (io.swagger.models.parameters.Parameter parameter : changedOperation.getAddParameters()) {
+					Assert.assertTrue(parameter instanceof DetachedParameter);
+					parameter.setRequired(!parameter.getRequired());
+					parameter.setRequired(!parameter.getRequired());
+				}
+			}
+		}
+	}
 }